@@ -0,0 +1,87 @@
+package org.arqaine.maven.app;
+
+import org.arqaine.maven.util.InputHandler;
+
+import java.io.PrintStream;
+import java.util.Scanner;
+import java.util.regex.Pattern;
+
+/**
+ * Answers the prompts of the table service from the current line of a command file.
+ *
+ * Prompts are not printed and nothing is asked twice: a missing or invalid answer fails the
+ * command instead of being taken from the lines of the commands that follow. The failure is
+ * also kept for the runner, since the table service reports some of them without throwing.
+ */
+public class BatchInputHandler extends InputHandler {
+    private static final Pattern TOKEN = Pattern.compile("\\S+");
+
+    private final PrintStream out;
+
+    private String failure;
+
+    public BatchInputHandler(Scanner scanner, PrintStream out) {
+        super(scanner);
+        this.out = out;
+    }
+
+    @Override
+    public void printCustomMessage(String message) {
+        out.println("  " + message);
+    }
+
+    @Override
+    public String getChoice(Scanner scanner, String prompt) {
+        String choice = next(scanner, prompt);
+        if (!choice.equalsIgnoreCase("K") && !choice.equalsIgnoreCase("V")) {
+            throw fail("Invalid input '" + choice + "'. Please enter 'K' or 'V'.");
+        }
+        return choice;
+    }
+
+    @Override
+    public int getUserInput(Scanner scanner, String prompt) {
+        String input = next(scanner, prompt);
+        try {
+            int userInput = Integer.parseInt(input);
+            if (userInput >= 0) {
+                return userInput;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below like a negative number
+        }
+        throw fail("Invalid input '" + input + "'. Please enter a valid number.");
+    }
+
+    @Override
+    public String getUserInputString(Scanner scanner, String prompt) {
+        return next(scanner, prompt);
+    }
+
+    // The next word of the current line, or null at its end
+    public String nextWord(Scanner scanner) {
+        return scanner.findInLine(TOKEN);
+    }
+
+    // The first answer that could not be given since the last call, or null
+    public String takeFailure() {
+        String taken = failure;
+        failure = null;
+        return taken;
+    }
+
+    private String next(Scanner scanner, String prompt) {
+        String word = nextWord(scanner);
+        if (word == null) {
+            throw fail("Missing answer to '" + prompt.trim() + "'");
+        }
+        return word;
+    }
+
+    private IllegalArgumentException fail(String message) {
+        if (failure == null) {
+            failure = message;
+        }
+        return new IllegalArgumentException(message);
+    }
+}
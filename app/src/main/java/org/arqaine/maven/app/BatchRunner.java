@@ -0,0 +1,180 @@
+package org.arqaine.maven.app;
+
+import org.arqaine.maven.service.TableService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * Runs a file of table commands, one per line, without prompting:
+ *
+ * <pre>
+ * search K|V target
+ * edit key K|V newKeyOrValue    (one K|V answer pair per row holding the key)
+ * print
+ * reset rows columns
+ * add rowIndex columns
+ * sort rowIndex
+ * sorttable key                 (or: sorttable * K|V)
+ * checkpoint
+ * </pre>
+ *
+ * Blank lines and lines starting with # are skipped. The table is only written at a checkpoint
+ * and at the end, and every command is timed, with a summary per command at the end.
+ */
+public class BatchRunner {
+    private static final int SEARCH_RESULT_LIMIT = 1000;
+
+    private final TableService tableService;
+    private final Scanner scanner;
+    private final BatchInputHandler inputHandler;
+    private final PrintStream out;
+
+    // Count, total and maximum nanoseconds per command
+    private final Map<String, long[]> timings = new LinkedHashMap<>();
+
+    public BatchRunner(TableService tableService, Scanner scanner, BatchInputHandler inputHandler, PrintStream out) {
+        this.tableService = tableService;
+        this.scanner = scanner;
+        this.inputHandler = inputHandler;
+        this.out = out;
+    }
+
+    // Runs every command and returns the number that failed
+    public int run() {
+        int lineNumber = 0;
+        int failures = 0;
+        long started = System.nanoTime();
+
+        while (scanner.hasNextLine()) {
+            lineNumber++;
+            String command = inputHandler.nextWord(scanner);
+            if (command == null || command.startsWith("#")) {
+                scanner.nextLine();
+                continue;
+            }
+
+            out.println("[" + lineNumber + "] " + command);
+            long start = System.nanoTime();
+            String failure = null;
+            try {
+                execute(command.toLowerCase());
+            } catch (IllegalArgumentException | IOException e) {
+                failure = e.getMessage();
+            }
+            // The service prints some failures, like a missing edit answer, instead of throwing them
+            String unanswered = inputHandler.takeFailure();
+            if (failure == null) {
+                failure = unanswered;
+            }
+            // Whatever the command left on its line is dropped, so the next command starts clean
+            String rest = scanner.hasNextLine() ? scanner.nextLine().trim() : "";
+            if (failure == null && !rest.isEmpty()) {
+                failure = "Unexpected arguments '" + rest + "'.";
+            }
+            if (failure != null) {
+                failures++;
+                out.println("  Failed: " + failure);
+            }
+            long elapsed = System.nanoTime() - start;
+            record(command.toLowerCase(), elapsed);
+            out.println("  (" + millis(elapsed) + " ms)");
+        }
+
+        long start = System.nanoTime();
+        tableService.flush();
+        record("save", System.nanoTime() - start);
+
+        printTimings(System.nanoTime() - started);
+        return failures;
+    }
+
+    private void execute(String command) throws IOException {
+        switch (command) {
+            case "search":
+                String searchChoice = inputHandler.getChoice(scanner, "search key or value");
+                String target = inputHandler.getUserInputString(scanner, "search target");
+                int[] shown = {0};
+                int hits = tableService.searchHits(searchChoice, target, SEARCH_RESULT_LIMIT + 1, hit -> {
+                    // One hit past the limit is asked for only to tell whether there are more
+                    if (shown[0] == SEARCH_RESULT_LIMIT) {
+                        return false;
+                    }
+                    shown[0]++;
+                    out.println("  Found '" + target + "' in row " + hit.getRowIndex() +
+                            " with key '" + hit.getKey() + "' and value '" + hit.getValue() + "'.");
+                    return true;
+                });
+                if (hits == 0) {
+                    out.println("  No instances of '" + target + "' found.");
+                } else if (hits > SEARCH_RESULT_LIMIT) {
+                    out.println("  Showing the first " + SEARCH_RESULT_LIMIT + " matches.");
+                }
+                break;
+            case "edit":
+                tableService.editCell(inputHandler.getUserInputString(scanner, "key to edit"));
+                break;
+            case "print":
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                tableService.printRows(writer, 0, Integer.MAX_VALUE);
+                writer.flush();
+                break;
+            case "reset":
+                int newRows = inputHandler.getUserInput(scanner, "number of rows");
+                int newCols = inputHandler.getUserInput(scanner, "number of columns");
+                inputHandler.printCustomMessage(tableService.reset(newRows, newCols));
+                break;
+            case "add":
+                int rowIndex = inputHandler.getUserInput(scanner, "row index");
+                int numColumns = inputHandler.getUserInput(scanner, "number of columns");
+                inputHandler.printCustomMessage(tableService.addNewRow(rowIndex, numColumns));
+                break;
+            case "sort":
+                inputHandler.printCustomMessage(tableService.sortRow(inputHandler.getUserInput(scanner, "row index")));
+                break;
+            case "sorttable":
+                String sortKey = inputHandler.getUserInputString(scanner, "key or *");
+                if (sortKey.equals("*")) {
+                    inputHandler.printCustomMessage(tableService.sortAllRows(inputHandler.getChoice(scanner, "sort by key or value")));
+                } else {
+                    inputHandler.printCustomMessage(tableService.sortRowsByKey(sortKey));
+                }
+                break;
+            case "checkpoint":
+                tableService.flush();
+                inputHandler.printCustomMessage("Table saved.");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command '" + command + "'.");
+        }
+    }
+
+    private void record(String command, long nanos) {
+        long[] timing = timings.computeIfAbsent(command, c -> new long[3]);
+        timing[0]++;
+        timing[1] += nanos;
+        timing[2] = Math.max(timing[2], nanos);
+    }
+
+    private void printTimings(long totalNanos) {
+        out.println();
+        out.println(String.format("%-12s %8s %12s %12s %12s", "Command", "Count", "Total ms", "Mean ms", "Max ms"));
+        for (Map.Entry<String, long[]> entry : timings.entrySet()) {
+            long[] timing = entry.getValue();
+            out.println(String.format("%-12s %8d %12s %12s %12s", entry.getKey(), timing[0],
+                    millis(timing[1]), millis(timing[1] / timing[0]), millis(timing[2])));
+        }
+        out.println("Finished in " + millis(totalNanos) + " ms.");
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+}
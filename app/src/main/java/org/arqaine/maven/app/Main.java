@@ -2,25 +2,65 @@ package org.arqaine.maven.app;
 
 import org.arqaine.maven.model.Table;
 import org.arqaine.maven.service.TableService;
+import org.arqaine.maven.service.impl.ConcurrentTableServiceImpl;
+import org.arqaine.maven.service.impl.MetricsTableService;
 import org.arqaine.maven.service.impl.TableServiceImpl;
+import org.arqaine.maven.util.FastInputHandler;
 import org.arqaine.maven.util.InputHandler;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 
 public class Main {
+    private static final long WRITE_BEHIND_DELAY_MILLIS = 5000;
+    private static final int WRITE_BEHIND_MAX_OPERATIONS = 500;
+    private static final int SEARCH_RESULT_LIMIT = 1000;
+    private static final int PRINT_PAGE_SIZE = 100;
+    private static final String BATCH_OPTION = "--batch";
+    private static final String SERVER_OPTION = "--server";
+    private static final long SERVER_WRITE_BEHIND_DELAY_MILLIS = 1000;
+    private static final int SERVER_WRITE_BEHIND_MAX_OPERATIONS = 1000;
+
     public static void main(String[] args) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        String commandFile = option(arguments, BATCH_OPTION, "<command file>");
+        if (commandFile != null) {
+            System.exit(runBatch(commandFile, arguments.toArray(new String[0])) == 0 ? 0 : 1);
+        }
+        String serverPort = option(arguments, SERVER_OPTION, "<port>");
+        if (serverPort != null) {
+            System.exit(runServer(serverPort, arguments.toArray(new String[0])));
+        }
 
         Scanner scanner = new Scanner(System.in);
         Table table = new Table();
-        InputHandler inputHandler = new InputHandler(scanner);
+        // TABLE_INPUT_MODE=fast reads the answers with a byte tokenizer instead of the scanner
+        InputHandler inputHandler = "fast".equalsIgnoreCase(System.getenv("TABLE_INPUT_MODE"))
+                ? new FastInputHandler(System.in)
+                : new InputHandler(scanner);
 
-        TableService tableService = new TableServiceImpl(table, scanner, inputHandler);
+        TableService tableService = withMetrics(new TableServiceImpl(table, scanner, inputHandler), inputHandler);
 
         //Initializing the contents of the table
         tableService.initializeTable(args, table);
 
-        //Saving
-        tableService.saveTableToFile(table.getTableData(), table.getFilePath());
+        //Changes are logged next to the table file and compacted into it in the background
+        tableService.enableChangeLog(table.getFilePath());
+        tableService.enableWriteBehind(table.getFilePath(), WRITE_BEHIND_DELAY_MILLIS, WRITE_BEHIND_MAX_OPERATIONS);
 
 
         int choice;
@@ -33,7 +73,8 @@ public class Main {
             System.out.println("4. Reset");
             System.out.println("5. Add new row");
             System.out.println("6. Sort a row");
-            System.out.println("7. Exit");
+            System.out.println("7. Sort the table");
+            System.out.println("8. Exit");
 
             choice = inputHandler.getUserInput(scanner, "Enter your Choice: ");
 
@@ -41,11 +82,25 @@ public class Main {
                 case 1:
                     //Search
                     String searchChoice = inputHandler.getChoice(scanner, "Do you want to search for a key (K) or a value (V)? ");
-                    System.out.print("Enter the target: ");
-                    String target = scanner.next();
-                    String searchResult = tableService.search(searchChoice, target);
+                    String target = inputHandler.getUserInputString(scanner, "Enter the target: ");
+                    // Hits are printed as they are found instead of being collected first
+                    int[] shown = {0};
+                    int hits = tableService.searchHits(searchChoice, target, SEARCH_RESULT_LIMIT + 1, hit -> {
+                        // One hit past the limit is asked for only to tell whether there are more
+                        if (shown[0] == SEARCH_RESULT_LIMIT) {
+                            return false;
+                        }
+                        shown[0]++;
+                        System.out.println("Found '" + target + "' in row " + hit.getRowIndex() +
+                                " with key '" + hit.getKey() + "' and value '" + hit.getValue() + "'.");
+                        return true;
+                    });
 
-                    inputHandler.printCustomMessage(searchResult);
+                    if (hits == 0) {
+                        inputHandler.printCustomMessage("No instances of '" + target + "' found.");
+                    } else if (hits > SEARCH_RESULT_LIMIT) {
+                        inputHandler.printCustomMessage("Showing the first " + SEARCH_RESULT_LIMIT + " matches.");
+                    }
                     break;
                 case 2:
                     //Edit
@@ -53,27 +108,30 @@ public class Main {
 
                     // Call the editCell method with the specified key
                     tableService.editCell(keyToEdit);
-
-
-
-                    // Save the updated table data to a file
-                    tableService.saveTableToFile(table.getTableData(), table.getFilePath());
                     break;
                 case 3:
-                    //Print Table
+                    //Print Table, a page at a time once it is large
+                    int rowCount = tableService.getRowCount();
+                    int firstRow = 0;
+                    int lastRow = rowCount;
+                    if (rowCount > PRINT_PAGE_SIZE) {
+                        int pages = (rowCount + PRINT_PAGE_SIZE - 1) / PRINT_PAGE_SIZE;
+                        int page = inputHandler.getUserInput(scanner, "The table has " + rowCount + " rows in " + pages +
+                                " pages. Enter the page to print, or 0 for all: ");
+                        if (page > 0) {
+                            firstRow = (Math.min(page, pages) - 1) * PRINT_PAGE_SIZE;
+                            lastRow = firstRow + PRINT_PAGE_SIZE;
+                        }
+                    }
                     System.out.println("\nTABLE\n");
-                    String printedTable = tableService.printTable();
-                    System.out.println(printedTable);
-                    tableService.saveTableToFile(table.getTableData(), table.getFilePath());
+                    printRows(tableService, inputHandler, firstRow, lastRow);
+                    System.out.println();
                     break;
                 case 4:
                     //Reset
                     int newRows = inputHandler.getUserInput(scanner, "Enter new number of rows: ");
                     int newCols = inputHandler.getUserInput(scanner, "Enter new number of columns: ");
-                    tableService.reset(newRows, newCols);
-
-                    tableService.saveTableToFile(table.getTableData(), table.getFilePath());
-                    inputHandler.printCustomMessage("Table reset with new random data.");
+                    inputHandler.printCustomMessage(tableService.reset(newRows, newCols));
                     break;
                 case 5:
                     //Add new row
@@ -82,18 +140,27 @@ public class Main {
 
                     String addRowMessage = tableService.addNewRow(rowIndex, numColumns);
                     inputHandler.printCustomMessage(addRowMessage);
-
-                    tableService.saveTableToFile(table.getTableData(), table.getFilePath());
                     break;
                 case 6:
                     //Sort row
                     int sortRowIndex = inputHandler.getUserInput(scanner, "Enter the row index you want to sort: ");
                     String sortMessage = tableService.sortRow(sortRowIndex);
                     inputHandler.printCustomMessage(sortMessage);
-
-                    tableService.saveTableToFile(table.getTableData(), table.getFilePath());
                     break;
                 case 7:
+                    //Sort every row, or the rows by the values of one key
+                    String sortKey = inputHandler.getUserInputString(scanner, "Enter the key to order the rows by, or * to sort the cells of every row: ");
+                    String sortTableMessage;
+                    if (sortKey.equals("*")) {
+                        String sortChoice = inputHandler.getChoice(scanner, "Do you want to sort the cells by key (K) or by value (V)? ");
+                        sortTableMessage = tableService.sortAllRows(sortChoice);
+                    } else {
+                        sortTableMessage = tableService.sortRowsByKey(sortKey);
+                    }
+                    inputHandler.printCustomMessage(sortTableMessage);
+                    break;
+                case 8:
+                    tableService.flush();
                     System.out.println("Exiting program. Goodbye!");
                     break;
                 default:
@@ -101,10 +168,117 @@ public class Main {
                     break;
             }
 
-        } while (choice != 7);
+        } while (choice != 8);
 
         scanner.close();
 
     }
-}
 
+    // Removes the option and its value from the arguments and returns the value, or null without the option
+    private static String option(List<String> arguments, String name, String valueName) {
+        int index = arguments.indexOf(name);
+        if (index < 0) {
+            return null;
+        }
+        if (index + 1 >= arguments.size()) {
+            System.out.println("Usage: " + name + " " + valueName);
+            System.exit(2);
+        }
+        String value = arguments.remove(index + 1);
+        arguments.remove(index);
+        return value;
+    }
+
+    // Operation metrics are published over JMX and, with TABLE_METRICS_DUMP_SECONDS set, printed to stderr
+    private static TableService withMetrics(TableService tableService, InputHandler inputHandler) {
+        MetricsTableService metrics = new MetricsTableService(tableService);
+        try {
+            metrics.registerMBeans();
+            if (tableService instanceof TableServiceImpl) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(((TableServiceImpl) tableService).getSearchCache(),
+                        new ObjectName(MetricsTableService.JMX_DOMAIN + ":type=SearchCache"));
+            }
+        } catch (JMException e) {
+            inputHandler.printCustomMessage("An error occurred while registering the metrics: " + e.getMessage());
+        }
+
+        String dumpSeconds = System.getenv("TABLE_METRICS_DUMP_SECONDS");
+        if (dumpSeconds != null && !dumpSeconds.trim().isEmpty()) {
+            try {
+                long period = Long.parseLong(dumpSeconds.trim());
+                if (period > 0) {
+                    metrics.startDump(System.err, period);
+                }
+            } catch (NumberFormatException e) {
+                inputHandler.printCustomMessage("Metrics dump interval '" + dumpSeconds + "' is not a number.");
+            }
+        }
+        return metrics;
+    }
+
+    // Rows go out through a buffer instead of being built into one string
+    private static void printRows(TableService tableService, InputHandler inputHandler, int fromRow, int toRow) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try {
+            tableService.printRows(out, fromRow, toRow);
+            out.flush();
+        } catch (IOException e) {
+            inputHandler.printCustomMessage("An error occurred while printing the table: " + e.getMessage());
+        }
+    }
+
+    // Runs a command file against the table and writes it only at checkpoints and at the end
+    private static int runBatch(String commandFile, String[] args) {
+        Scanner scanner;
+        try {
+            scanner = new Scanner(Files.newBufferedReader(Paths.get(commandFile), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.out.println("An error occurred while reading the command file: " + e.getMessage());
+            return 1;
+        }
+        Table table = new Table();
+        BatchInputHandler inputHandler = new BatchInputHandler(scanner, System.out);
+
+        TableService tableService = withMetrics(new TableServiceImpl(table, scanner, inputHandler), inputHandler);
+        tableService.initializeTable(args, table);
+
+        // Nothing is flushed on its own, only the shutdown hook still saves an interrupted run
+        tableService.enableWriteBehind(table.getFilePath(), Long.MAX_VALUE, Integer.MAX_VALUE);
+
+        int failures = new BatchRunner(tableService, scanner, inputHandler, System.out).run();
+        scanner.close();
+        return failures;
+    }
+
+    // Serves the table to many clients on the loopback interface until the process is stopped
+    private static int runServer(String port, String[] args) {
+        Table table = new Table();
+        ServerInputHandler inputHandler = new ServerInputHandler();
+
+        TableService tableService = withMetrics(new ConcurrentTableServiceImpl(table, null, inputHandler), inputHandler);
+        tableService.initializeTable(args, table);
+
+        // Changes from all clients are logged and saved together in the background
+        tableService.enableChangeLog(table.getFilePath());
+        tableService.enableWriteBehind(table.getFilePath(), SERVER_WRITE_BEHIND_DELAY_MILLIS, SERVER_WRITE_BEHIND_MAX_OPERATIONS);
+
+        try {
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(port));
+            TableServer server = new TableServer(new TableProtocol(tableService, inputHandler), address,
+                    Runtime.getRuntime().availableProcessors());
+            server.start();
+            System.out.println("Table server listening on port " + server.getPort() + ".");
+            server.join();
+            return 0;
+        } catch (NumberFormatException e) {
+            System.out.println("Port '" + port + "' is not a number.");
+            return 2;
+        } catch (IOException e) {
+            System.out.println("An error occurred while starting the server: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.arqaine.maven.app;
+
+import org.arqaine.maven.util.InputHandler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Answers the prompts of a shared table service per request: the thread running a request
+ * takes its answers from that request and collects the messages the service prints for it,
+ * so requests of different clients never see each other's answers or messages.
+ */
+public class ServerInputHandler extends InputHandler {
+    private final ThreadLocal<Request> current = new ThreadLocal<>();
+
+    public ServerInputHandler() {
+        super(null);
+    }
+
+    // Runs the call with the given answers and returns the messages it printed
+    public List<String> answering(List<String> answers, Runnable call) {
+        Request request = new Request(answers);
+        current.set(request);
+        try {
+            call.run();
+            return request.messages;
+        } finally {
+            current.remove();
+        }
+    }
+
+    @Override
+    public void printCustomMessage(String message) {
+        Request request = current.get();
+        if (request != null) {
+            request.messages.add(message);
+        } else {
+            // Background work such as write-behind saves, outside any request
+            System.out.println(message);
+        }
+    }
+
+    @Override
+    public String getChoice(Scanner scanner, String prompt) {
+        String choice = next(prompt);
+        if (!choice.equalsIgnoreCase("K") && !choice.equalsIgnoreCase("V")) {
+            throw new IllegalArgumentException("Invalid input '" + choice + "'. Please enter 'K' or 'V'.");
+        }
+        return choice;
+    }
+
+    @Override
+    public int getUserInput(Scanner scanner, String prompt) {
+        String input = next(prompt);
+        try {
+            int userInput = Integer.parseInt(input);
+            if (userInput >= 0) {
+                return userInput;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below like a negative number
+        }
+        throw new IllegalArgumentException("Invalid input '" + input + "'. Please enter a valid number.");
+    }
+
+    @Override
+    public String getUserInputString(Scanner scanner, String prompt) {
+        return next(prompt);
+    }
+
+    private String next(String prompt) {
+        Request request = current.get();
+        if (request == null || request.answers.isEmpty()) {
+            throw new IllegalArgumentException("Missing answer to '" + prompt.trim() + "'");
+        }
+        return request.answers.poll();
+    }
+
+    private static final class Request {
+        private final Deque<String> answers;
+        private final List<String> messages = new ArrayList<>();
+
+        private Request(List<String> answers) {
+            this.answers = new ArrayDeque<>(answers);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.arqaine.maven.app;
+
+import org.arqaine.maven.service.TableService;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The line protocol of the table server. A request is one line:
+ *
+ * <pre>
+ * search K|V target
+ * edit key K|V newKeyOrValue      (one K|V answer pair per row holding the key)
+ * print [fromRow [toRow]]         (at most 1000 rows per request)
+ * rows
+ * reset rows columns              (at most 1000000 cells, rows of up to 1000 columns)
+ * add rowIndex columns            (at most 1000 columns)
+ * sort rowIndex
+ * sorttable key                   (or: sorttable * K|V)
+ * save
+ * quit
+ * </pre>
+ *
+ * The response is any number of data lines starting with "+ ", then one line starting with
+ * "OK " or "ERR " and the message of the table service.
+ */
+public class TableProtocol {
+    public static final int SEARCH_RESULT_LIMIT = 1000;
+    public static final int PRINT_ROW_LIMIT = 1000;
+    public static final int RESET_CELL_LIMIT = 1_000_000;
+    public static final int COLUMN_LIMIT = 1000;
+    public static final String QUIT = "quit";
+
+    private final TableService tableService;
+    private final ServerInputHandler inputHandler;
+
+    public TableProtocol(TableService tableService, ServerInputHandler inputHandler) {
+        this.tableService = tableService;
+        this.inputHandler = inputHandler;
+    }
+
+    public String handle(String line) {
+        StringBuilder data = new StringBuilder();
+        String[] words = line.trim().split("\\s+");
+        String command = words[0].toLowerCase();
+        List<String> answers = command.equals("edit") && words.length > 2
+                ? Arrays.asList(words).subList(2, words.length)
+                : Collections.<String>emptyList();
+
+        String[] status = new String[1];
+        try {
+            List<String> messages = inputHandler.answering(answers, () -> status[0] = execute(command, words, data));
+            if (status[0] == null) {
+                status[0] = String.join(" ", messages);
+            } else {
+                for (String message : messages) {
+                    data.append("+ ").append(message).append('\n');
+                }
+            }
+            return data.append("OK ").append(status[0]).append('\n').toString();
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            return data.append("ERR ").append(e.getMessage()).append('\n').toString();
+        }
+    }
+
+    // The status message, or null when the messages the service printed are the status
+    private String execute(String command, String[] words, StringBuilder data) {
+        switch (command) {
+            case "search":
+                arguments(words, 2, "search K|V target");
+                String target = words[2];
+                int[] shown = {0};
+                int hits = tableService.searchHits(choice(words[1]), target, SEARCH_RESULT_LIMIT + 1, hit -> {
+                    // One hit past the limit is asked for only to tell whether there are more
+                    if (shown[0] == SEARCH_RESULT_LIMIT) {
+                        return false;
+                    }
+                    shown[0]++;
+                    data.append("+ ").append(hit.getRowIndex()).append(' ')
+                            .append(hit.getKey()).append(':').append(hit.getValue()).append('\n');
+                    return true;
+                });
+                return hits > SEARCH_RESULT_LIMIT ? SEARCH_RESULT_LIMIT + " hits, more not sent" : hits + " hits";
+            case "edit":
+                if (words.length < 4 || words.length % 2 != 0) {
+                    throw new IllegalArgumentException("Usage: edit key K|V newKeyOrValue");
+                }
+                tableService.editCell(words[1]);
+                return null;
+            case "print":
+                if (words.length > 3) {
+                    throw new IllegalArgumentException("Usage: print [fromRow [toRow]]");
+                }
+                int fromRow = words.length > 1 ? number(words[1]) : 0;
+                int toRow = words.length > 2 ? number(words[2]) : fromRow + PRINT_ROW_LIMIT;
+                return print(fromRow, Math.min(toRow, fromRow + PRINT_ROW_LIMIT), data) + " rows";
+            case "rows":
+                arguments(words, 0, "rows");
+                return String.valueOf(tableService.getRowCount());
+            case "reset":
+                arguments(words, 2, "reset rows columns");
+                int rows = number(words[1], RESET_CELL_LIMIT, "rows");
+                int columns = number(words[2], COLUMN_LIMIT, "columns");
+                if ((long) rows * columns > RESET_CELL_LIMIT) {
+                    throw new IllegalArgumentException("At most " + RESET_CELL_LIMIT + " cells per request.");
+                }
+                return tableService.reset(rows, columns);
+            case "add":
+                arguments(words, 2, "add rowIndex columns");
+                return tableService.addNewRow(number(words[1]), number(words[2], COLUMN_LIMIT, "columns"));
+            case "sort":
+                arguments(words, 1, "sort rowIndex");
+                return tableService.sortRow(number(words[1]));
+            case "sorttable":
+                if (words.length == 3 && words[1].equals("*")) {
+                    return tableService.sortAllRows(choice(words[2]));
+                }
+                arguments(words, 1, "sorttable key, or sorttable * K|V");
+                return tableService.sortRowsByKey(words[1]);
+            case "save":
+                arguments(words, 0, "save");
+                tableService.flush();
+                return "Table saved.";
+            case QUIT:
+                return "Bye.";
+            default:
+                throw new IllegalArgumentException("Unknown command '" + words[0] + "'.");
+        }
+    }
+
+    private int print(int fromRow, int toRow, StringBuilder data) {
+        StringWriter rows = new StringWriter();
+        int printed;
+        try {
+            printed = tableService.printRows(rows, fromRow, Math.max(fromRow, toRow));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (String row : rows.toString().split("\n", -1)) {
+            if (!row.isEmpty()) {
+                data.append("+ ").append(row).append('\n');
+            }
+        }
+        return printed;
+    }
+
+    private static void arguments(String[] words, int count, String usage) {
+        if (words.length != count + 1) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+    }
+
+    private static String choice(String word) {
+        if (!word.equalsIgnoreCase("K") && !word.equalsIgnoreCase("V")) {
+            throw new IllegalArgumentException("Invalid input '" + word + "'. Please enter 'K' or 'V'.");
+        }
+        return word;
+    }
+
+    private static int number(String word) {
+        try {
+            int number = Integer.parseInt(word);
+            if (number >= 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below like a negative number
+        }
+        throw new IllegalArgumentException("Invalid input '" + word + "'. Please enter a valid number.");
+    }
+
+    // One request must not make the server build more than it can hold
+    private static int number(String word, int limit, String what) {
+        int number = number(word);
+        if (number > limit) {
+            throw new IllegalArgumentException("At most " + limit + " " + what + " per request.");
+        }
+        return number;
+    }
+}
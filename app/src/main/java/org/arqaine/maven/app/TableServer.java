@@ -0,0 +1,267 @@
+package org.arqaine.maven.app;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the {@link TableProtocol} over TCP to any number of clients.
+ *
+ * One selector thread accepts connections and moves bytes; it never runs a request. Complete
+ * request lines are handed to a pool of workers, and the requests of one connection run one
+ * after the other in the order they arrived, while those of different connections run in
+ * parallel. The table service therefore has to be safe for concurrent use.
+ *
+ * A connection stops being read while more than {@link #MAX_BACKLOG} of its requests wait to be
+ * run or to have their responses sent, so a client that sends faster than it reads is held back
+ * by TCP instead of filling the server's memory.
+ */
+public class TableServer implements Closeable {
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int MAX_LINE_LENGTH = 1 << 16;
+    static final int MAX_BACKLOG = 256;
+
+    private final TableProtocol protocol;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Thread selectorThread;
+    private volatile boolean running = true;
+
+    public TableServer(TableProtocol protocol, InetSocketAddress address, int workerThreads) throws IOException {
+        this.protocol = protocol;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        AtomicInteger workerNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "table-server-worker-" + workerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.selectorThread = new Thread(this::selectLoop, "table-server");
+    }
+
+    public void start() {
+        selectorThread.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public void join() throws InterruptedException {
+        selectorThread.join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdown();
+    }
+
+    private void selectLoop() {
+        try {
+            while (running) {
+                selector.select();
+                Connection connection;
+                while ((connection = pendingWrites.poll()) != null) {
+                    if (connection.key.isValid()) {
+                        connection.key.interestOps(connection.key.interestOps() | SelectionKey.OP_WRITE);
+                    }
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Connection client = (Connection) key.attachment();
+                            if (key.isReadable()) {
+                                client.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                client.write();
+                            }
+                        }
+                    } catch (IOException e) {
+                        closeQuietly(key);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            System.out.println("The table server stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                // Nothing is left to release
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // The peer is gone already
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final Queue<ByteBuffer> responses = new ConcurrentLinkedQueue<>();
+        // Requests read but whose responses are not yet written; only the selector thread uses it
+        private int backlog;
+        private boolean readPaused;
+        private volatile boolean quitting;
+        private boolean inputClosed;
+
+        private Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        // Runs on the selector thread
+        private void read() throws IOException {
+            readBuffer.clear();
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                // The client sent everything; its responses still go out before closing
+                inputClosed = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                closeWhenDone();
+                return;
+            }
+            readBuffer.flip();
+            while (readBuffer.hasRemaining()) {
+                byte b = readBuffer.get();
+                if (b == '\n') {
+                    String request = new String(line.toByteArray(), StandardCharsets.UTF_8).trim();
+                    line.reset();
+                    if (!request.isEmpty() && !quitting) {
+                        quitting = request.equalsIgnoreCase(TableProtocol.QUIT);
+                        backlog++;
+                        requests.add(request);
+                        schedule();
+                    }
+                } else if (line.size() < MAX_LINE_LENGTH) {
+                    line.write(b);
+                } else {
+                    throw new IOException("Request line too long.");
+                }
+            }
+            // The rest of a buffer already read still runs, so the backlog exceeds the limit by at most one buffer
+            if (backlog > MAX_BACKLOG) {
+                readPaused = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                workers.execute(this::runRequests);
+            }
+        }
+
+        // Runs on a worker, one at a time per connection
+        private void runRequests() {
+            String request;
+            while ((request = requests.poll()) != null) {
+                String response;
+                try {
+                    response = protocol.handle(request);
+                } catch (RuntimeException e) {
+                    response = "ERR " + e + "\n";
+                }
+                responses.add(ByteBuffer.wrap(response.getBytes(StandardCharsets.UTF_8)));
+                pendingWrites.add(this);
+                selector.wakeup();
+            }
+            scheduled.set(false);
+            // A request that arrived after the last poll but before the flag was cleared
+            if (!requests.isEmpty()) {
+                schedule();
+            } else {
+                // Lets the selector close a connection that waited for this worker to finish
+                pendingWrites.add(this);
+                selector.wakeup();
+            }
+        }
+
+        // Runs on the selector thread
+        private void write() throws IOException {
+            ByteBuffer buffer;
+            while ((buffer = responses.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+                responses.poll();
+                backlog--;
+                if (readPaused && backlog <= MAX_BACKLOG / 2) {
+                    readPaused = false;
+                    key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                }
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            closeWhenDone();
+        }
+
+        private void closeWhenDone() {
+            if ((quitting || inputClosed) && requests.isEmpty() && !scheduled.get() && responses.isEmpty()) {
+                closeQuietly(key);
+            }
+        }
+    }
+}
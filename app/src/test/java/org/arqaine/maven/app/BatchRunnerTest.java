@@ -0,0 +1,96 @@
+package org.arqaine.maven.app;
+
+import org.arqaine.maven.model.Table;
+import org.arqaine.maven.service.impl.TableServiceImpl;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Scanner;
+
+import static org.junit.Assert.*;
+
+public class BatchRunnerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Table table;
+    private File tableFile;
+    private ByteArrayOutputStream output;
+
+    @Before
+    public void setUp() throws IOException {
+        table = new Table();
+        LinkedHashMap<String, String> row1 = new LinkedHashMap<>();
+        row1.put("key1", "value1");
+        row1.put("key2", "value2");
+        LinkedHashMap<String, String> row2 = new LinkedHashMap<>();
+        row2.put("key3", "value3");
+        table.setTableData(new ArrayList<>(Arrays.asList(row1, row2)));
+        tableFile = folder.newFile("table.txt");
+        output = new ByteArrayOutputStream();
+    }
+
+    private int run(String commands) {
+        Scanner scanner = new Scanner(commands);
+        PrintStream out = new PrintStream(output, true);
+        BatchInputHandler inputHandler = new BatchInputHandler(scanner, out);
+        TableServiceImpl tableService = new TableServiceImpl(table, scanner, inputHandler);
+        tableService.enableWriteBehind(tableFile.getAbsolutePath(), Long.MAX_VALUE, Integer.MAX_VALUE);
+        return new BatchRunner(tableService, scanner, inputHandler, out).run();
+    }
+
+    private String savedTable() throws IOException {
+        return new String(Files.readAllBytes(tableFile.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testCommandsRunInOrderAndTheTableIsSavedAtTheEnd() throws IOException {
+        assertEquals(0, run("# Comments and blank lines are skipped\n\nedit key1 V newValue\nedit key3 K key4\n"
+                + "search V newValue\n"));
+
+        assertEquals("key1:newValue | key2:value2\nkey4:value3\n", savedTable());
+        assertTrue(output.toString(), output.toString().contains("  Found 'newValue' in row 0 with key 'key1'"));
+    }
+
+    @Test
+    public void testMalformedCommandsAreCountedAsFailuresAndChangeNothing() throws IOException {
+        int failures = run("edit key1 V\nedit key3 X newKey\nedit key3\nadd 1 two\nsort 0 extra\nbogus\n"
+                + "edit key2 V newValue\n");
+
+        assertEquals(6, failures);
+        assertTrue(output.toString(), output.toString().contains("  Failed: Missing answer to 'Enter the new value:'"));
+        assertTrue(output.toString(), output.toString().contains("  Failed: Invalid input 'X'. Please enter 'K' or 'V'."));
+        assertTrue(output.toString(), output.toString().contains("  Failed: Unknown command 'bogus'."));
+        // Only the last edit is well formed
+        assertEquals("key1:value1 | key2:newValue\nkey3:value3\n", savedTable());
+    }
+
+    @Test
+    public void testOnlyMoreHitsThanTheLimitAreReportedAsCutShort() {
+        // The two rows set up hold three keys, so these make exactly 1000 hits
+        for (int i = 0; i < 997; i++) {
+            LinkedHashMap<String, String> row = new LinkedHashMap<>();
+            row.put("key" + (i + 5), "value");
+            table.getTableData().add(row);
+        }
+        run("search K key\n");
+        assertFalse(output.toString(), output.toString().contains("Showing the first"));
+
+        table.getTableData().get(0).put("key0", "value0");
+        output.reset();
+        run("search K key\n");
+        assertTrue(output.toString(), output.toString().contains("Showing the first 1000 matches."));
+        assertEquals(1001, output.toString().split("  Found 'key'", -1).length);
+    }
+}
@@ -0,0 +1,158 @@
+package org.arqaine.maven.app;
+
+import org.arqaine.maven.model.Table;
+import org.arqaine.maven.service.impl.ConcurrentTableServiceImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.Assert.*;
+
+public class TableServerTest {
+    private Table table;
+    private TableServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        table = new Table();
+        LinkedHashMap<String, String> row1 = new LinkedHashMap<>();
+        row1.put("key1", "value1");
+        row1.put("key2", "value2");
+        LinkedHashMap<String, String> row2 = new LinkedHashMap<>();
+        row2.put("key3", "value3");
+        table.setTableData(new ArrayList<>(Arrays.asList(row1, row2)));
+
+        ServerInputHandler inputHandler = new ServerInputHandler();
+        ConcurrentTableServiceImpl tableService = new ConcurrentTableServiceImpl(table, null, inputHandler);
+        server = new TableServer(new TableProtocol(tableService, inputHandler),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testRequestsAreAnsweredInOrder() throws IOException {
+        List<String> lines = exchange("search K key1\nedit key1 V newValue\nprint 0 1\nsort x\nbogus\nquit\nrows\n");
+
+        assertEquals(Arrays.asList(
+                "+ 0 key1:value1",
+                "OK 1 hits",
+                "OK Value updated successfully.",
+                "+ key1:newValue | key2:value2 | ",
+                "OK 1 rows",
+                "ERR Invalid input 'x'. Please enter a valid number.",
+                "ERR Unknown command 'bogus'.",
+                "OK Bye."), lines);
+    }
+
+    @Test
+    public void testOversizedResetsAndRowsAreRejected() throws IOException {
+        List<String> lines = exchange("reset 2000000000 1\nreset 2 1001\nreset 1001 1000\nadd 1 1001\nadd 1 1000\nrows\nquit\n");
+
+        assertEquals(Arrays.asList(
+                "ERR At most 1000000 rows per request.",
+                "ERR At most 1000 columns per request.",
+                "ERR At most 1000000 cells per request.",
+                "ERR At most 1000 columns per request.",
+                "OK New row inserted successfully!",
+                "OK 3",
+                "OK Bye."), lines);
+    }
+
+    @Test
+    public void testClientsShareOneTable() throws Exception {
+        int clients = 8;
+        int rowsPerClient = 50;
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            threads.add(new Thread(() -> {
+                try {
+                    StringBuilder requests = new StringBuilder();
+                    for (int i = 0; i < rowsPerClient; i++) {
+                        requests.append("add 1 3\nsearch V value\n");
+                    }
+                    List<String> lines = exchange(requests.append("quit\n").toString());
+                    assertEquals(lines.toString(), rowsPerClient,
+                            lines.stream().filter(line -> line.equals("OK New row inserted successfully!")).count());
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(2 + clients * rowsPerClient, table.getTableData().size());
+        assertEquals(Arrays.asList("OK " + (2 + clients * rowsPerClient)), exchange("rows\n"));
+    }
+
+    @Test
+    public void testAClientFarAheadOfItsResponsesGetsThemAll() throws Exception {
+        int requests = 20 * TableServer.MAX_BACKLOG;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            // The server stops reading while the responses pile up, so the requests are sent alongside
+            Thread sender = new Thread(() -> {
+                try {
+                    OutputStream out = socket.getOutputStream();
+                    for (int i = 0; i < requests; i++) {
+                        out.write("rows\n".getBytes(StandardCharsets.UTF_8));
+                    }
+                    out.flush();
+                    socket.shutdownOutput();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            sender.start();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            int responses = 0;
+            while (in.readLine() != null) {
+                responses++;
+            }
+            sender.join();
+            assertEquals(requests, responses);
+        }
+    }
+
+    // Sends the requests, half-closes the connection and reads every response line
+    private List<String> exchange(String requests) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(requests.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            socket.shutdownOutput();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.arqaine.maven.benchmarks;
+
+import org.arqaine.maven.service.impl.RandomTableGenerator;
+import org.arqaine.maven.util.InputHandler;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * Reproducible tables for the benchmarks. Cells are three characters from a seeded
+ * {@link RandomTableGenerator}, and an exact share of the rows, spread evenly, gets the cell
+ * {@code #hit:#hit} as its first cell. Random cells are too short to contain the target, so
+ * searching or editing it touches exactly those rows.
+ */
+public final class BenchmarkTables {
+    public static final long SEED = 42;
+    public static final String TARGET = "#hit";
+
+    private BenchmarkTables() {
+    }
+
+    public static List<LinkedHashMap<String, String>> generate(int numRows, int numColumns, double hitRate) {
+        List<LinkedHashMap<String, String>> rows = new RandomTableGenerator(SEED).rows(numRows, numColumns);
+        for (int i = 0; i < numRows; i++) {
+            if ((long) ((i + 1) * hitRate) > (long) (i * hitRate)) {
+                rows.set(i, withTarget(rows.get(i)));
+            }
+        }
+        return rows;
+    }
+
+    private static LinkedHashMap<String, String> withTarget(LinkedHashMap<String, String> row) {
+        LinkedHashMap<String, String> hitRow = new LinkedHashMap<>();
+        hitRow.put(TARGET, TARGET);
+        Iterator<Map.Entry<String, String>> cells = row.entrySet().iterator();
+        cells.next();
+        while (cells.hasNext()) {
+            Map.Entry<String, String> cell = cells.next();
+            hitRow.put(cell.getKey(), cell.getValue());
+        }
+        return hitRow;
+    }
+
+    // Answers every edit prompt with "change the value to the target" and prints nothing
+    public static InputHandler quietInputHandler() {
+        return new InputHandler(null) {
+            @Override
+            public void printCustomMessage(String message) {
+            }
+
+            @Override
+            public String getChoice(Scanner scanner, String prompt) {
+                return "V";
+            }
+
+            @Override
+            public int getUserInput(Scanner scanner, String prompt) {
+                return 0;
+            }
+
+            @Override
+            public String getUserInputString(Scanner scanner, String prompt) {
+                return TARGET;
+            }
+        };
+    }
+}
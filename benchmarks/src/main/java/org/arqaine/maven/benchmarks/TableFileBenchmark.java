@@ -0,0 +1,84 @@
+package org.arqaine.maven.benchmarks;
+
+import org.arqaine.maven.model.Table;
+import org.arqaine.maven.service.impl.TableServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading and saving a table file in a temporary directory. Files are named {@code .txt}, so the
+ * load mode comes from TABLE_LOAD_MODE as in the application. Saves include forcing the file to
+ * disk, which is part of what a save costs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableFileBenchmark {
+    @Param({"1000", "100000"})
+    public int rows;
+
+    @Param({"4", "16"})
+    public int columns;
+
+    @Param({"0.001", "0.1"})
+    public double hitRate;
+
+    private Path directory;
+    private Path loadFile;
+    private Path saveFile;
+    private List<LinkedHashMap<String, String>> tableData;
+    private Table table;
+    private TableServiceImpl tableService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("table-benchmark");
+        loadFile = directory.resolve("load.txt");
+        saveFile = directory.resolve("save.txt");
+        tableData = BenchmarkTables.generate(rows, columns, hitRate);
+
+        table = new Table();
+        tableService = new TableServiceImpl(table, null, BenchmarkTables.quietInputHandler());
+        tableService.saveTableToFile(tableData, loadFile.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(loadFile);
+        Files.deleteIfExists(saveFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public List<LinkedHashMap<String, String>> loadTableFromFile() {
+        table.getTableData().clear();
+        return tableService.loadTableFromFile(loadFile.toString());
+    }
+
+    @Benchmark
+    public Path saveTableToFile() {
+        tableService.saveTableToFile(tableData, saveFile.toString());
+        return saveFile;
+    }
+}
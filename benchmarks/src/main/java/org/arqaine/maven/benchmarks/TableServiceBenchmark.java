@@ -0,0 +1,100 @@
+package org.arqaine.maven.benchmarks;
+
+import org.arqaine.maven.model.IndexedRowList;
+import org.arqaine.maven.model.Table;
+import org.arqaine.maven.service.impl.RandomTableGenerator;
+import org.arqaine.maven.service.impl.TableServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory operations of {@link TableServiceImpl}. The table is generated again before
+ * every iteration, so rows added and sorted by one iteration do not carry over into the next.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableServiceBenchmark {
+    @Param({"1000", "100000"})
+    public int rows;
+
+    @Param({"4", "16"})
+    public int columns;
+
+    @Param({"0.001", "0.1"})
+    public double hitRate;
+
+    // The row container of a Table, or the ArrayList it replaced
+    @Param({"indexed", "array"})
+    public String rowList;
+
+    private Table table;
+    private TableServiceImpl tableService;
+    private int nextRow;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        table = new Table();
+        List<LinkedHashMap<String, String>> generated = BenchmarkTables.generate(rows, columns, hitRate);
+        table.setTableData(rowList.equals("indexed") ? new IndexedRowList<>(generated) : generated);
+        tableService = new TableServiceImpl(table, null, BenchmarkTables.quietInputHandler());
+        tableService.setRandomGenerator(new RandomTableGenerator(BenchmarkTables.SEED));
+        nextRow = 0;
+    }
+
+    @Benchmark
+    public String searchKeys() {
+        return tableService.search("K", BenchmarkTables.TARGET);
+    }
+
+    @Benchmark
+    public String searchValues() {
+        return tableService.search("V", BenchmarkTables.TARGET);
+    }
+
+    // Sets the value of the target key in every row holding it
+    @Benchmark
+    public Table editCell() {
+        tableService.editCell(BenchmarkTables.TARGET);
+        return table;
+    }
+
+    @Benchmark
+    public String printTable() {
+        return tableService.printTable();
+    }
+
+    @Benchmark
+    public Table reset() {
+        tableService.reset(rows, columns);
+        return table;
+    }
+
+    @Benchmark
+    public String addNewRow() {
+        return tableService.addNewRow(table.getTableData().size() / 2, columns);
+    }
+
+    @Benchmark
+    public String sortRow() {
+        nextRow = nextRow + 1 < table.getTableData().size() ? nextRow + 1 : 0;
+        return tableService.sortRow(nextRow);
+    }
+}
@@ -0,0 +1,409 @@
+package org.arqaine.maven.model;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A table row that keeps its keys and values in one char array instead of a hash entry and two
+ * strings per cell. Each cell costs the end offsets of its key and value plus its characters,
+ * where a {@link LinkedHashMap} spends well over a hundred bytes on the entry and the strings.
+ *
+ * The row is still a {@code LinkedHashMap} for the callers that take one. Reads are answered from
+ * the char array, looking keys up by a scan, so only rows of up to {@link #MAX_CELLS} cells are
+ * kept compact. The first change turns the row into an ordinary map in place, keeping its
+ * identity, so a table stays compact except for the rows that were edited. The key, value and
+ * entry views are read-only until then.
+ */
+public class CompactRow extends LinkedHashMap<String, String> {
+    private static final long serialVersionUID = 1L;
+    public static final int MAX_CELLS = 64;
+
+    // Keys and values one after another, and where each of them ends; null once the row has changed
+    private char[] chars;
+    private int[] ends;
+
+    private CompactRow(char[] chars, int[] ends) {
+        super(0);
+        this.chars = chars;
+        this.ends = ends;
+    }
+
+    // A copy that shares the characters of a compact row instead of building a map from them
+    public static LinkedHashMap<String, String> copyOf(LinkedHashMap<String, String> row) {
+        if (row instanceof CompactRow && ((CompactRow) row).chars != null) {
+            return new CompactRow(((CompactRow) row).chars, ((CompactRow) row).ends);
+        }
+        return new LinkedHashMap<>(row);
+    }
+
+    public boolean isCompact() {
+        return chars != null;
+    }
+
+    private String text(int index) {
+        int start = index == 0 ? 0 : ends[index - 1];
+        return new String(chars, start, ends[index] - start);
+    }
+
+    private boolean textEquals(int index, String text) {
+        int start = index == 0 ? 0 : ends[index - 1];
+        if (ends[index] - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (chars[start + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The cell holding the key, or -1
+    private int find(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        for (int cell = 0; cell < ends.length / 2; cell++) {
+            if (textEquals(2 * cell, (String) key)) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    private void inflate() {
+        if (chars == null) {
+            return;
+        }
+        int cells = ends.length / 2;
+        String[] texts = new String[ends.length];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = text(i);
+        }
+        chars = null;
+        ends = null;
+        for (int cell = 0; cell < cells; cell++) {
+            super.put(texts[2 * cell], texts[2 * cell + 1]);
+        }
+    }
+
+    @Override
+    public int size() {
+        return chars != null ? ends.length / 2 : super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        if (chars == null) {
+            return super.get(key);
+        }
+        int cell = find(key);
+        return cell < 0 ? null : text(2 * cell + 1);
+    }
+
+    @Override
+    public String getOrDefault(Object key, String defaultValue) {
+        if (chars == null) {
+            return super.getOrDefault(key, defaultValue);
+        }
+        int cell = find(key);
+        return cell < 0 ? defaultValue : text(2 * cell + 1);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return chars != null ? find(key) >= 0 : super.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (chars == null) {
+            return super.containsValue(value);
+        }
+        if (value instanceof String) {
+            for (int cell = 0; cell < ends.length / 2; cell++) {
+                if (textEquals(2 * cell + 1, (String) value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        if (chars == null) {
+            super.forEach(action);
+            return;
+        }
+        for (int cell = 0; cell < ends.length / 2; cell++) {
+            action.accept(text(2 * cell), text(2 * cell + 1));
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        if (chars == null) {
+            return super.entrySet();
+        }
+        char[] rowChars = chars;
+        int[] rowEnds = ends;
+        return new AbstractSet<Map.Entry<String, String>>() {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                Iterator<String> keys = new Texts(rowChars, rowEnds, 0);
+                Iterator<String> values = new Texts(rowChars, rowEnds, 1);
+                return new Iterator<Map.Entry<String, String>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return keys.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, String> next() {
+                        return new AbstractMap.SimpleImmutableEntry<>(keys.next(), values.next());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return rowEnds.length / 2;
+            }
+        };
+    }
+
+    @Override
+    public Set<String> keySet() {
+        if (chars == null) {
+            return super.keySet();
+        }
+        char[] rowChars = chars;
+        int[] rowEnds = ends;
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new Texts(rowChars, rowEnds, 0);
+            }
+
+            @Override
+            public int size() {
+                return rowEnds.length / 2;
+            }
+        };
+    }
+
+    @Override
+    public Collection<String> values() {
+        if (chars == null) {
+            return super.values();
+        }
+        char[] rowChars = chars;
+        int[] rowEnds = ends;
+        return new AbstractCollection<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new Texts(rowChars, rowEnds, 1);
+            }
+
+            @Override
+            public int size() {
+                return rowEnds.length / 2;
+            }
+        };
+    }
+
+    // The keys (part 0) or the values (part 1) of a compact row in order
+    private static final class Texts implements Iterator<String> {
+        private final char[] chars;
+        private final int[] ends;
+        private int next;
+
+        private Texts(char[] chars, int[] ends, int part) {
+            this.chars = chars;
+            this.ends = ends;
+            this.next = part;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < ends.length;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int start = next == 0 ? 0 : ends[next - 1];
+            String text = new String(chars, start, ends[next] - start);
+            next += 2;
+            return text;
+        }
+    }
+
+    // Every change turns the row into an ordinary map first
+
+    @Override
+    public String put(String key, String value) {
+        inflate();
+        return super.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends String> m) {
+        inflate();
+        super.putAll(m);
+    }
+
+    @Override
+    public String remove(Object key) {
+        inflate();
+        return super.remove(key);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        inflate();
+        return super.remove(key, value);
+    }
+
+    @Override
+    public void clear() {
+        inflate();
+        super.clear();
+    }
+
+    @Override
+    public String putIfAbsent(String key, String value) {
+        inflate();
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public boolean replace(String key, String oldValue, String newValue) {
+        inflate();
+        return super.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public String replace(String key, String value) {
+        inflate();
+        return super.replace(key, value);
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super String, ? extends String> function) {
+        inflate();
+        super.replaceAll(function);
+    }
+
+    @Override
+    public String computeIfAbsent(String key, Function<? super String, ? extends String> mappingFunction) {
+        inflate();
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public String computeIfPresent(String key, BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
+        inflate();
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public String compute(String key, BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
+        inflate();
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public String merge(String key, String value, BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
+        inflate();
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public Object clone() {
+        return copyOf(this);
+    }
+
+    // Serialized as the ordinary map it stands for
+    private Object writeReplace() {
+        return new LinkedHashMap<>(this);
+    }
+
+    /**
+     * Collects the cells of one row at a time and hands out a compact row, or an ordinary map for
+     * a row wider than {@link #MAX_CELLS}. A later cell with the same key replaces the value of the
+     * earlier one, as {@link Map#put} does. A builder can be reused but not shared between threads.
+     */
+    public static final class Builder {
+        private String[] texts = new String[8];
+        private int size;
+        private LinkedHashMap<String, String> wide;
+
+        public void put(String key, String value) {
+            if (wide != null) {
+                wide.put(key, value);
+                return;
+            }
+            for (int i = 0; i < size; i += 2) {
+                if (texts[i].equals(key)) {
+                    texts[i + 1] = value;
+                    return;
+                }
+            }
+            if (size == 2 * MAX_CELLS) {
+                wide = new LinkedHashMap<>();
+                for (int i = 0; i < size; i += 2) {
+                    wide.put(texts[i], texts[i + 1]);
+                }
+                wide.put(key, value);
+                return;
+            }
+            if (size == texts.length) {
+                texts = Arrays.copyOf(texts, 2 * size);
+            }
+            texts[size++] = key;
+            texts[size++] = value;
+        }
+
+        // The row put together so far; the builder starts over empty
+        public LinkedHashMap<String, String> build() {
+            LinkedHashMap<String, String> row = wide;
+            if (row == null) {
+                int length = 0;
+                int[] ends = new int[size];
+                for (int i = 0; i < size; i++) {
+                    length += texts[i].length();
+                    ends[i] = length;
+                }
+                char[] chars = new char[length];
+                for (int i = 0; i < size; i++) {
+                    texts[i].getChars(0, texts[i].length(), chars, i == 0 ? 0 : ends[i - 1]);
+                    texts[i] = null;
+                }
+                row = new CompactRow(chars, ends);
+            }
+            size = 0;
+            wide = null;
+            return row;
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package org.arqaine.maven.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The rows of a table in a counted B-tree: rows sit in linked leaves of up to
+ * {@link #LEAF_CAPACITY}, and every node knows how many rows are below it. Inserting, getting
+ * and replacing at a position, and finding the position of a row, take O(log n) instead of the
+ * shifting and scanning of an {@link java.util.ArrayList}, while iterating walks the leaves
+ * in order.
+ *
+ * {@link #positionOf} finds a row by identity, which is what the indexes of a table need;
+ * {@link #indexOf} keeps the equality semantics of {@link java.util.List}. Removing rows only
+ * drops leaves that run empty, since tables shrink as a whole with {@link #clear}.
+ */
+public class IndexedRowList<E> extends AbstractList<E> {
+    static final int LEAF_CAPACITY = 64;
+    static final int BRANCH_CAPACITY = 32;
+
+    private Node root;
+    private Leaf first;
+    private Leaf last;
+
+    // The leaf holding each row; a row held more than once is counted in copies
+    private final Map<Object, Leaf> leaves = new IdentityHashMap<>();
+    private final Map<Object, Integer> copies = new IdentityHashMap<>();
+
+    public IndexedRowList() {
+        clear();
+    }
+
+    public IndexedRowList(Iterable<? extends E> rows) {
+        this();
+        for (E row : rows) {
+            add(row);
+        }
+    }
+
+    @Override
+    public int size() {
+        return root.size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index, size());
+        Node node = root;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int i = 0;
+            while (index >= branch.children[i].size) {
+                index -= branch.children[i].size;
+                i++;
+            }
+            node = branch.children[i];
+        }
+        return (E) ((Leaf) node).items[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E row) {
+        checkIndex(index, size());
+        Position at = locate(index);
+        return replace(at.leaf, at.offset, row);
+    }
+
+    @Override
+    public boolean add(E row) {
+        insert(last, last.size, row);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, E row) {
+        checkIndex(index, size() + 1);
+        Position at = locate(index);
+        insert(at.leaf, at.offset, row);
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        checkIndex(index, size());
+        Position at = locate(index);
+        Leaf leaf = at.leaf;
+        E old = (E) leaf.items[at.offset];
+        System.arraycopy(leaf.items, at.offset + 1, leaf.items, at.offset, leaf.size - at.offset - 1);
+        leaf.items[--leaf.size] = null;
+        for (Branch branch = leaf.parent; branch != null; branch = branch.parent) {
+            branch.size--;
+        }
+        untrack(old, leaf);
+        if (size() == 0) {
+            clear();
+        } else if (leaf.size == 0) {
+            unlink(leaf);
+        }
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        Leaf leaf = new Leaf();
+        root = leaf;
+        first = leaf;
+        last = leaf;
+        leaves.clear();
+        copies.clear();
+        modCount++;
+    }
+
+    // The position of the row, found by identity, or -1; any one of them for a row held twice
+    public int positionOf(Object row) {
+        Leaf leaf = leaves.get(row);
+        if (leaf == null) {
+            return -1;
+        }
+        int position = 0;
+        while (leaf.items[position] != row) {
+            position++;
+        }
+        Node node = leaf;
+        for (Branch branch = node.parent; branch != null; node = branch, branch = branch.parent) {
+            for (int i = 0; branch.children[i] != node; i++) {
+                position += branch.children[i].size;
+            }
+        }
+        return position;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Cursor(0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        checkIndex(index, size() + 1);
+        return new Cursor(index);
+    }
+
+    private void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    // The leaf and offset of a position; the end of the list is the end of the last leaf
+    private Position locate(int index) {
+        Node node = root;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int i = 0;
+            while (i < branch.count - 1 && index >= branch.children[i].size) {
+                index -= branch.children[i].size;
+                i++;
+            }
+            node = branch.children[i];
+        }
+        return new Position((Leaf) node, index);
+    }
+
+    private void insert(Leaf leaf, int offset, E row) {
+        if (leaf.size == LEAF_CAPACITY) {
+            // Appending to a full leaf starts a new one, so rows loaded in order fill their leaves
+            int from = offset == LEAF_CAPACITY ? LEAF_CAPACITY : LEAF_CAPACITY / 2;
+            Leaf right = split(leaf, from);
+            if (offset >= from) {
+                offset -= from;
+                leaf = right;
+            }
+        }
+        System.arraycopy(leaf.items, offset, leaf.items, offset + 1, leaf.size - offset);
+        leaf.items[offset] = row;
+        leaf.size++;
+        for (Branch branch = leaf.parent; branch != null; branch = branch.parent) {
+            branch.size++;
+        }
+        track(row, leaf);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E replace(Leaf leaf, int offset, E row) {
+        E old = (E) leaf.items[offset];
+        leaf.items[offset] = row;
+        track(row, leaf);
+        untrack(old, leaf);
+        return old;
+    }
+
+    private Leaf split(Leaf leaf, int from) {
+        Leaf right = new Leaf();
+        right.size = leaf.size - from;
+        System.arraycopy(leaf.items, from, right.items, 0, right.size);
+        Arrays.fill(leaf.items, from, leaf.size, null);
+        leaf.size = from;
+        for (int i = 0; i < right.size; i++) {
+            if (leaves.get(right.items[i]) == leaf) {
+                leaves.put(right.items[i], right);
+            }
+        }
+
+        right.previous = leaf;
+        right.next = leaf.next;
+        if (right.next != null) {
+            right.next.previous = right;
+        } else {
+            last = right;
+        }
+        leaf.next = right;
+        addSibling(leaf, right);
+        return right;
+    }
+
+    // Puts sibling right after node; the sizes above node still count the sibling's rows
+    private void addSibling(Node node, Node sibling) {
+        Branch parent = node.parent;
+        if (parent == null) {
+            parent = new Branch();
+            parent.children[0] = node;
+            parent.count = 1;
+            parent.size = node.size + sibling.size;
+            node.parent = parent;
+            root = parent;
+        }
+        int i = childIndex(parent, node);
+        if (parent.count == BRANCH_CAPACITY) {
+            int half = BRANCH_CAPACITY / 2;
+            Branch right = new Branch();
+            for (int c = half; c < BRANCH_CAPACITY; c++) {
+                Node child = parent.children[c];
+                right.children[c - half] = child;
+                right.size += child.size;
+                child.parent = right;
+                parent.children[c] = null;
+            }
+            right.count = BRANCH_CAPACITY - half;
+            parent.count = half;
+            parent.size -= right.size;
+            if (i >= half) {
+                i -= half;
+                parent.size -= sibling.size;
+                right.size += sibling.size;
+                addSibling(parent, right);
+                parent = right;
+            } else {
+                addSibling(parent, right);
+            }
+        }
+        System.arraycopy(parent.children, i + 1, parent.children, i + 2, parent.count - i - 1);
+        parent.children[i + 1] = sibling;
+        parent.count++;
+        sibling.parent = parent;
+    }
+
+    private void unlink(Leaf leaf) {
+        if (leaf.previous != null) {
+            leaf.previous.next = leaf.next;
+        } else {
+            first = leaf.next;
+        }
+        if (leaf.next != null) {
+            leaf.next.previous = leaf.previous;
+        } else {
+            last = leaf.previous;
+        }
+        Node node = leaf;
+        Branch parent = node.parent;
+        // Empty branches go with their last child
+        while (parent.count == 1 && parent != root) {
+            node = parent;
+            parent = parent.parent;
+        }
+        int i = childIndex(parent, node);
+        System.arraycopy(parent.children, i + 1, parent.children, i, parent.count - i - 1);
+        parent.children[--parent.count] = null;
+        while (root instanceof Branch && ((Branch) root).count == 1) {
+            root = ((Branch) root).children[0];
+            root.parent = null;
+        }
+    }
+
+    private static int childIndex(Branch branch, Node child) {
+        int i = 0;
+        while (branch.children[i] != child) {
+            i++;
+        }
+        return i;
+    }
+
+    private void track(Object row, Leaf leaf) {
+        if (leaves.put(row, leaf) != null) {
+            copies.merge(row, 1, Integer::sum);
+        }
+    }
+
+    private void untrack(Object row, Leaf leaf) {
+        Integer extra = copies.get(row);
+        if (extra == null) {
+            leaves.remove(row);
+            return;
+        }
+        if (extra == 1) {
+            copies.remove(row);
+        } else {
+            copies.put(row, extra - 1);
+        }
+        if (leaves.get(row) == leaf && !leaf.holds(row)) {
+            // Rare: the leaf on record lost its copy, look for another one
+            for (Leaf other = first; other != null; other = other.next) {
+                if (other.holds(row)) {
+                    leaves.put(row, other);
+                    break;
+                }
+            }
+        }
+    }
+
+    private abstract static class Node {
+        Branch parent;
+        int size;
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] items = new Object[LEAF_CAPACITY];
+        Leaf previous;
+        Leaf next;
+
+        boolean holds(Object row) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == row) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node[] children = new Node[BRANCH_CAPACITY];
+        int count;
+    }
+
+    private static final class Position {
+        final Leaf leaf;
+        final int offset;
+
+        Position(Leaf leaf, int offset) {
+            this.leaf = leaf;
+            this.offset = offset;
+        }
+    }
+
+    // Walks the leaves; changes through the cursor find their place again in O(log n)
+    private final class Cursor implements ListIterator<E> {
+        private Leaf leaf;
+        private int offset;
+        private int index;
+        private int lastReturned = -1;
+        private Leaf lastLeaf;
+        private int lastOffset;
+        private int expectedModCount = modCount;
+
+        private Cursor(int index) {
+            seek(index);
+        }
+
+        private void seek(int index) {
+            Position at = locate(index);
+            this.leaf = at.leaf;
+            this.offset = at.offset;
+            this.index = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            checkForComodification();
+            if (index >= size()) {
+                throw new NoSuchElementException();
+            }
+            if (offset == leaf.size) {
+                leaf = leaf.next;
+                offset = 0;
+            }
+            lastReturned = index++;
+            lastLeaf = leaf;
+            lastOffset = offset;
+            return (E) leaf.items[offset++];
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return index > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E previous() {
+            checkForComodification();
+            if (index <= 0) {
+                throw new NoSuchElementException();
+            }
+            if (offset == 0) {
+                leaf = leaf.previous;
+                offset = leaf.size;
+            }
+            lastReturned = --index;
+            lastLeaf = leaf;
+            lastOffset = --offset;
+            return (E) leaf.items[offset];
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            IndexedRowList.this.remove(lastReturned);
+            seek(lastReturned);
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void set(E row) {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            replace(lastLeaf, lastOffset, row);
+        }
+
+        @Override
+        public void add(E row) {
+            checkForComodification();
+            IndexedRowList.this.add(index, row);
+            seek(index + 1);
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
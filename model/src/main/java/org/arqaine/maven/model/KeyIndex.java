@@ -0,0 +1,120 @@
+package org.arqaine.maven.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact-key index over the rows of one list: which rows hold a given key.
+ *
+ * Rows are tracked by identity. Their positions come from the list if it is an
+ * {@link IndexedRowList}, and are otherwise rebuilt lazily after inserts that shift them, like
+ * {@link TableIndex} does. The index has to be told about every change made to the
+ * list and about every key renamed inside a row.
+ */
+public class KeyIndex {
+    private final List<? extends Map<String, String>> rows;
+    private final Map<String, List<Map<String, String>>> rowsByKey = new HashMap<>();
+
+    private final Map<Map<String, String>, Integer> rowPositions = new IdentityHashMap<>();
+    private boolean positionsDirty;
+
+    public KeyIndex(List<? extends Map<String, String>> rows) {
+        this.rows = rows;
+        for (Map<String, String> row : rows) {
+            addRow(row);
+        }
+        positionsDirty = true;
+    }
+
+    public boolean isIndexing(List<? extends Map<String, String>> rows) {
+        return this.rows == rows;
+    }
+
+    public void rowAdded(int rowIndex, Map<String, String> row) {
+        addRow(row);
+        if (!positionsDirty && rowIndex == rowPositions.size()) {
+            rowPositions.put(row, rowIndex);
+        } else {
+            positionsDirty = true;
+        }
+    }
+
+    public void rowReplaced(Map<String, String> oldRow, Map<String, String> newRow) {
+        for (String key : oldRow.keySet()) {
+            unregister(key, oldRow);
+        }
+        addRow(newRow);
+        Integer position = rowPositions.remove(oldRow);
+        if (position != null) {
+            rowPositions.put(newRow, position);
+        }
+    }
+
+    public void keyRenamed(Map<String, String> row, String oldKey, String newKey) {
+        unregister(oldKey, row);
+        register(newKey, row);
+    }
+
+    // Positions of the rows holding the key, in table order
+    public List<Integer> rowsWithKey(String key) {
+        List<Map<String, String>> holders = rowsByKey.get(key);
+        if (holders == null) {
+            return Collections.emptyList();
+        }
+        List<Integer> positions = new ArrayList<>(holders.size());
+        if (rows instanceof IndexedRowList) {
+            for (Map<String, String> row : holders) {
+                positions.add(((IndexedRowList<?>) rows).positionOf(row));
+            }
+        } else {
+            refreshPositions();
+            for (Map<String, String> row : holders) {
+                positions.add(rowPositions.get(row));
+            }
+        }
+        Collections.sort(positions);
+        return positions;
+    }
+
+    private void refreshPositions() {
+        if (positionsDirty) {
+            rowPositions.clear();
+            int i = 0;
+            for (Map<String, String> row : rows) {
+                rowPositions.put(row, i++);
+            }
+            positionsDirty = false;
+        }
+    }
+
+    private void addRow(Map<String, String> row) {
+        for (String key : row.keySet()) {
+            register(key, row);
+        }
+    }
+
+    private void register(String key, Map<String, String> row) {
+        // Keys are meant to be unique, so most keys are held by a single row
+        rowsByKey.computeIfAbsent(key, k -> new ArrayList<>(1)).add(row);
+    }
+
+    private void unregister(String key, Map<String, String> row) {
+        List<Map<String, String>> holders = rowsByKey.get(key);
+        if (holders == null) {
+            return;
+        }
+        for (int i = 0; i < holders.size(); i++) {
+            if (holders.get(i) == row) {
+                holders.remove(i);
+                break;
+            }
+        }
+        if (holders.isEmpty()) {
+            rowsByKey.remove(key);
+        }
+    }
+}
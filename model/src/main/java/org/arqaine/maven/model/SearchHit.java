@@ -0,0 +1,30 @@
+package org.arqaine.maven.model;
+
+public class SearchHit {
+    private final int rowIndex;
+    private final String key;
+    private final String value;
+
+    public SearchHit(int rowIndex, String key, String value) {
+        this.rowIndex = rowIndex;
+        this.key = key;
+        this.value = value;
+    }
+
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return rowIndex + ":" + key + ":" + value;
+    }
+}
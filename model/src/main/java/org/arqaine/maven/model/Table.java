@@ -2,7 +2,6 @@ package org.arqaine.maven.model;
 
 import java.util.List;
 import java.util.LinkedHashMap;
-import java.util.ArrayList;
 
 public class Table {
     private List<LinkedHashMap<String, String>> tableData;
@@ -11,7 +10,7 @@ public class Table {
     private String filePath;
 
     public Table() {
-        tableData = new ArrayList<>();
+        tableData = new IndexedRowList<>();
     }
 
     public List<LinkedHashMap<String, String>> getTableData() {
@@ -0,0 +1,261 @@
+package org.arqaine.maven.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Substring index over the keys and values of a table.
+ *
+ * Every cell is registered under each of its substrings of length 1 to {@link #GRAM_LENGTH},
+ * so targets up to that length are answered straight from the postings and longer targets
+ * only verify the cells of their rarest gram. The index follows the rows of one list and
+ * has to be told about every change made to it.
+ */
+public class TableIndex {
+    public static final int GRAM_LENGTH = 3;
+
+    private final List<? extends Map<String, String>> rows;
+    private final Map<String, Set<Cell>> keyGrams = new HashMap<>();
+    private final Map<String, Set<Cell>> valueGrams = new HashMap<>();
+
+    // Row positions are rebuilt lazily after inserts that shift them
+    private final Map<Map<String, String>, Integer> rowPositions = new IdentityHashMap<>();
+    private boolean positionsDirty;
+
+    public TableIndex(List<? extends Map<String, String>> rows) {
+        this.rows = rows;
+        for (Map<String, String> row : rows) {
+            addRow(row);
+        }
+        positionsDirty = true;
+    }
+
+    public boolean isIndexing(List<? extends Map<String, String>> rows) {
+        return this.rows == rows;
+    }
+
+    public void clear() {
+        keyGrams.clear();
+        valueGrams.clear();
+        rowPositions.clear();
+        positionsDirty = false;
+    }
+
+    public void rowAdded(int rowIndex, Map<String, String> row) {
+        addRow(row);
+        if (!positionsDirty && rowIndex == rowPositions.size()) {
+            rowPositions.put(row, rowIndex);
+        } else {
+            positionsDirty = true;
+        }
+    }
+
+    public void rowReplaced(Map<String, String> oldRow, Map<String, String> newRow) {
+        removeRow(oldRow);
+        addRow(newRow);
+        Integer position = rowPositions.remove(oldRow);
+        if (position != null) {
+            rowPositions.put(newRow, position);
+        }
+    }
+
+    public void valueChanged(Map<String, String> row, String key, String oldValue, String newValue) {
+        Cell cell = new Cell(row, key);
+        if (oldValue != null) {
+            unregister(valueGrams, oldValue, cell);
+        }
+        register(valueGrams, newValue, cell);
+    }
+
+    // The key of a cell was renamed in place, its value stayed the same
+    public void keyRenamed(Map<String, String> row, String oldKey, String newKey, String value) {
+        Cell oldCell = new Cell(row, oldKey);
+        unregister(keyGrams, oldKey, oldCell);
+        unregister(valueGrams, value, oldCell);
+        Cell newCell = new Cell(row, newKey);
+        register(keyGrams, newKey, newCell);
+        register(valueGrams, value, newCell);
+    }
+
+    public List<SearchHit> findKeys(String target) {
+        return find(keyGrams, target, true);
+    }
+
+    public List<SearchHit> findValues(String target) {
+        return find(valueGrams, target, false);
+    }
+
+    // An upper bound on the hits of findKeys, taken from the postings without finding the hits
+    public int keyCandidates(String target) {
+        return candidates(keyGrams, target);
+    }
+
+    public int valueCandidates(String target) {
+        return candidates(valueGrams, target);
+    }
+
+    private int candidates(Map<String, Set<Cell>> grams, String target) {
+        if (target.isEmpty()) {
+            return Integer.MAX_VALUE;
+        }
+        Set<Cell> candidates = rarestPostings(grams, target);
+        return candidates == null ? 0 : candidates.size();
+    }
+
+    private List<SearchHit> find(Map<String, Set<Cell>> grams, String target, boolean byKey) {
+        if (target.isEmpty()) {
+            return allCells();
+        }
+
+        Set<Cell> candidates = rarestPostings(grams, target);
+        if (candidates == null || candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        boolean verify = target.length() > GRAM_LENGTH;
+
+        Map<Map<String, String>, Set<String>> keysByRow = new IdentityHashMap<>();
+        for (Cell cell : candidates) {
+            String text = byKey ? cell.key : cell.row.get(cell.key);
+            if (!verify || text.contains(target)) {
+                keysByRow.computeIfAbsent(cell.row, r -> new HashSet<>()).add(cell.key);
+            }
+        }
+        return toHits(keysByRow);
+    }
+
+    // The postings of the target, or of its rarest gram, which bounds the cells to verify, when it is longer
+    private static Set<Cell> rarestPostings(Map<String, Set<Cell>> grams, String target) {
+        if (target.length() <= GRAM_LENGTH) {
+            return grams.get(target);
+        }
+        Set<Cell> candidates = null;
+        for (int i = 0; i + GRAM_LENGTH <= target.length(); i++) {
+            Set<Cell> postings = grams.get(target.substring(i, i + GRAM_LENGTH));
+            if (postings == null) {
+                return null;
+            }
+            if (candidates == null || postings.size() < candidates.size()) {
+                candidates = postings;
+            }
+        }
+        return candidates;
+    }
+
+    private List<SearchHit> toHits(Map<Map<String, String>, Set<String>> keysByRow) {
+        Map<Map<String, String>, Integer> rowPositions = positionsOf(keysByRow.keySet());
+
+        List<Map<String, String>> hitRows = new ArrayList<>(keysByRow.keySet());
+        hitRows.sort((a, b) -> Integer.compare(rowPositions.get(a), rowPositions.get(b)));
+
+        // Report hits in row order and, within a row, in the row's own key order
+        List<SearchHit> hits = new ArrayList<>();
+        for (Map<String, String> row : hitRows) {
+            Set<String> keys = keysByRow.get(row);
+            int rowIndex = rowPositions.get(row);
+            for (Map.Entry<String, String> entry : row.entrySet()) {
+                if (keys.contains(entry.getKey())) {
+                    hits.add(new SearchHit(rowIndex, entry.getKey(), entry.getValue()));
+                }
+            }
+        }
+        return hits;
+    }
+
+    private List<SearchHit> allCells() {
+        List<SearchHit> hits = new ArrayList<>();
+        int i = 0;
+        for (Map<String, String> row : rows) {
+            for (Map.Entry<String, String> entry : row.entrySet()) {
+                hits.add(new SearchHit(i, entry.getKey(), entry.getValue()));
+            }
+            i++;
+        }
+        return hits;
+    }
+
+    // An IndexedRowList knows the positions of its rows, other lists need the rebuilt map
+    private Map<Map<String, String>, Integer> positionsOf(Set<Map<String, String>> hitRows) {
+        if (rows instanceof IndexedRowList) {
+            Map<Map<String, String>, Integer> positions = new IdentityHashMap<>();
+            for (Map<String, String> row : hitRows) {
+                positions.put(row, ((IndexedRowList<?>) rows).positionOf(row));
+            }
+            return positions;
+        }
+        if (positionsDirty) {
+            rowPositions.clear();
+            int i = 0;
+            for (Map<String, String> row : rows) {
+                rowPositions.put(row, i++);
+            }
+            positionsDirty = false;
+        }
+        return rowPositions;
+    }
+
+    private void addRow(Map<String, String> row) {
+        for (Map.Entry<String, String> entry : row.entrySet()) {
+            Cell cell = new Cell(row, entry.getKey());
+            register(keyGrams, entry.getKey(), cell);
+            register(valueGrams, entry.getValue(), cell);
+        }
+    }
+
+    private void removeRow(Map<String, String> row) {
+        for (Map.Entry<String, String> entry : row.entrySet()) {
+            Cell cell = new Cell(row, entry.getKey());
+            unregister(keyGrams, entry.getKey(), cell);
+            unregister(valueGrams, entry.getValue(), cell);
+        }
+    }
+
+    private static void register(Map<String, Set<Cell>> grams, String text, Cell cell) {
+        for (int length = 1; length <= GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= text.length(); i++) {
+                grams.computeIfAbsent(text.substring(i, i + length), g -> new HashSet<>()).add(cell);
+            }
+        }
+    }
+
+    private static void unregister(Map<String, Set<Cell>> grams, String text, Cell cell) {
+        for (int length = 1; length <= GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= text.length(); i++) {
+                String gram = text.substring(i, i + length);
+                Set<Cell> postings = grams.get(gram);
+                if (postings != null && postings.remove(cell) && postings.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static final class Cell {
+        private final Map<String, String> row;
+        private final String key;
+
+        private Cell(Map<String, String> row, String key) {
+            this.row = row;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Cell)) {
+                return false;
+            }
+            Cell other = (Cell) o;
+            return row == other.row && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(row) + key.hashCode();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.arqaine.maven.model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompactRowTest {
+
+    private static LinkedHashMap<String, String> build(String... cells) {
+        CompactRow.Builder builder = new CompactRow.Builder();
+        for (int i = 0; i < cells.length; i += 2) {
+            builder.put(cells[i], cells[i + 1]);
+        }
+        return builder.build();
+    }
+
+    private static LinkedHashMap<String, String> map(String... cells) {
+        LinkedHashMap<String, String> row = new LinkedHashMap<>();
+        for (int i = 0; i < cells.length; i += 2) {
+            row.put(cells[i], cells[i + 1]);
+        }
+        return row;
+    }
+
+    @Test
+    public void testReadsLikeTheMapItStandsFor() {
+        String[] cells = {"b", "2", "a", "", "", "empty key", "b", "3", "ä", "ü"};
+        LinkedHashMap<String, String> row = build(cells);
+        LinkedHashMap<String, String> expected = map(cells);
+
+        assertTrue(((CompactRow) row).isCompact());
+        assertEquals(expected, row);
+        assertEquals(row, expected);
+        assertEquals(expected.hashCode(), row.hashCode());
+        assertEquals(expected.toString(), row.toString());
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(row.keySet()));
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(row.values()));
+        assertEquals("3", row.get("b"));
+        assertEquals("empty key", row.get(""));
+        assertNull(row.get("c"));
+        assertNull(row.get(1));
+        assertEquals("x", row.getOrDefault("c", "x"));
+        assertTrue(row.containsKey("ä"));
+        assertTrue(row.containsValue(""));
+        assertFalse(row.containsValue("2"));
+        assertEquals(4, row.size());
+        assertTrue(((CompactRow) build()).isEmpty());
+    }
+
+    @Test
+    public void testFirstChangeTurnsTheRowIntoAnOrdinaryMap() {
+        LinkedHashMap<String, String> row = build("k1", "v1", "k2", "v2", "k3", "v3");
+        LinkedHashMap<String, String> copy = CompactRow.copyOf(row);
+
+        assertEquals("v2", row.remove("k2"));
+        row.put("k2", "new");
+        row.put("k1", "changed");
+
+        assertFalse(((CompactRow) row).isCompact());
+        assertEquals(map("k1", "changed", "k3", "v3", "k2", "new"), row);
+        assertEquals("[k1, k3, k2]", row.keySet().toString());
+        // The copy shared the characters but not the change
+        assertTrue(((CompactRow) copy).isCompact());
+        assertEquals(map("k1", "v1", "k2", "v2", "k3", "v3"), copy);
+    }
+
+    @Test
+    public void testRowsWiderThanTheLimitAreOrdinaryMaps() {
+        CompactRow.Builder builder = new CompactRow.Builder();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i <= CompactRow.MAX_CELLS; i++) {
+            builder.put("k" + i, "v" + i);
+            keys.add("k" + i);
+        }
+        builder.put("k0", "again");
+        LinkedHashMap<String, String> row = builder.build();
+
+        assertFalse(row instanceof CompactRow);
+        assertEquals(keys, new ArrayList<>(row.keySet()));
+        assertEquals("again", row.get("k0"));
+        // The builder starts over for the next row
+        assertTrue(builder.build() instanceof CompactRow);
+    }
+
+    @Test
+    public void testSerializedAsAnOrdinaryMap() throws IOException, ClassNotFoundException {
+        LinkedHashMap<String, String> row = build("k1", "v1", "k2", "v2");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(row);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(map("k1", "v1", "k2", "v2"), in.readObject());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.arqaine.maven.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IndexedRowListTest {
+
+    @Test
+    public void testMatchesArrayListUnderRandomEdits() {
+        Random random = new Random(42);
+        List<LinkedHashMap<String, String>> expected = new ArrayList<>();
+        IndexedRowList<LinkedHashMap<String, String>> rows = new IndexedRowList<>();
+
+        for (int step = 0; step < 20000; step++) {
+            int operation = random.nextInt(10);
+            if (operation < 6 || expected.isEmpty()) {
+                LinkedHashMap<String, String> row = row(step);
+                int index = random.nextInt(expected.size() + 1);
+                expected.add(index, row);
+                rows.add(index, row);
+            } else if (operation < 8) {
+                int index = random.nextInt(expected.size());
+                LinkedHashMap<String, String> row = row(step);
+                assertSame(expected.set(index, row), rows.set(index, row));
+            } else {
+                int index = random.nextInt(expected.size());
+                assertSame(expected.remove(index), rows.remove(index));
+            }
+        }
+
+        assertEquals(expected.size(), rows.size());
+        assertEquals(expected, rows);
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), rows.get(i));
+            assertEquals(i, rows.positionOf(expected.get(i)));
+        }
+        assertEquals(-1, rows.positionOf(row(-1)));
+
+        while (!expected.isEmpty()) {
+            int index = random.nextInt(expected.size());
+            assertSame(expected.remove(index), rows.remove(index));
+            if (!expected.isEmpty()) {
+                int probe = random.nextInt(expected.size());
+                assertEquals(probe, rows.positionOf(expected.get(probe)));
+            }
+        }
+        assertEquals(0, rows.size());
+    }
+
+    @Test
+    public void testIteratesBothWaysAndFollowsChangesThroughTheIterator() {
+        IndexedRowList<String> rows = new IndexedRowList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add("r" + i);
+            expected.add("r" + i);
+        }
+
+        ListIterator<String> cursor = rows.listIterator(500);
+        assertEquals("r500", cursor.next());
+        assertEquals("r500", cursor.previous());
+        assertEquals("r499", cursor.previous());
+        cursor.remove();
+        cursor.add("new");
+        assertEquals("r500", cursor.next());
+        expected.set(499, "new");
+        assertEquals(expected, rows);
+        assertEquals(expected.subList(100, 900), new ArrayList<>(rows.subList(100, 900)));
+
+        Iterator<String> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        assertTrue(rows.isEmpty());
+        rows.add("again");
+        assertEquals(Arrays.asList("again"), rows);
+    }
+
+    @Test
+    public void testRowHeldTwiceKeepsAPosition() {
+        IndexedRowList<LinkedHashMap<String, String>> rows = new IndexedRowList<>();
+        for (int i = 0; i < 200; i++) {
+            rows.add(row(i));
+        }
+        LinkedHashMap<String, String> moved = rows.get(150);
+
+        // Reordering in place holds a row twice for a moment, as replacing all rows does
+        rows.set(3, moved);
+        assertTrue(rows.positionOf(moved) == 3 || rows.positionOf(moved) == 150);
+        rows.set(150, row(1000));
+        assertEquals(3, rows.positionOf(moved));
+    }
+
+    private static LinkedHashMap<String, String> row(int id) {
+        LinkedHashMap<String, String> row = new LinkedHashMap<>();
+        row.put("key" + id, "value" + id);
+        return row;
+    }
+}
@@ -1,25 +1,72 @@
 package org.arqaine.maven.service;
 
+import org.arqaine.maven.model.SearchHit;
 import org.arqaine.maven.model.Table;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.function.Predicate;
 
 public interface TableService {
 
     String search(String searchChoice, String target);
-    void editCell(String keyToEdit);
+
+    // Hands hits to the handler in row order as they are found, until it returns false or limit
+    // hits were handed over (0 for no limit), and returns the number handed over
+    int searchHits(String searchChoice, String target, int limit, Predicate<SearchHit> handler);
+
+    default void editCell(String keyToEdit) {
+        editCell(keyToEdit, () -> { });
+    }
+
+    // Like editCell, calling answersRead once the user has answered and before the edit is applied
+    void editCell(String keyToEdit, Runnable answersRead);
+
     String printTable();
-    void reset(int newRows, int newCols);
+
+    // Writes the rows from fromRow up to, not including, toRow as printTable does, without
+    // building the whole text first, and returns the number of rows written
+    int printRows(Writer out, int fromRow, int toRow) throws IOException;
+
+    int getRowCount();
+
+    String reset(int newRows, int newCols);
     String addNewRow(int rowIndex, int numColumns);
     String sortRow(int rowIndex);
+
+    // Sorts the cells of every row by key (K) or by value (V)
+    String sortAllRows(String sortChoice);
+
+    // Orders the rows by the value they hold for the key, rows without it last
+    String sortRowsByKey(String key);
+
     List<LinkedHashMap<String, String>> loadTableFromJar(String filePath, String outputFile);
 
-    List<LinkedHashMap<String, String>> loadTableFromFile(String filePath);
+    default List<LinkedHashMap<String, String>> loadTableFromFile(String filePath) {
+        return loadTableFromFile(filePath, () -> { });
+    }
+
+    // Like loadTableFromFile, calling loaded only if the whole file was read
+    List<LinkedHashMap<String, String>> loadTableFromFile(String filePath, Runnable loaded);
 
     void saveTableToFile(List<LinkedHashMap<String, String>> tableData, String filePath);
 
     List<LinkedHashMap<String, String>> initializeTable(String[] args, Table table);
+
+    // Log changes to the table file instead of rewriting it, replaying what a previous run left
+    void enableChangeLog(String filePath);
+
+    // Save changes in the background once delayMillis passed or maxOperations changes are pending
+    void enableWriteBehind(String filePath, long delayMillis, int maxOperations);
+
+    // Rewrite the table file with all logged changes and empty the log
+    void compact();
+
+    // Rewrite the table file only if something changed since it was last written
+    void flush();
+
     LinkedHashMap<String, String> generateRandomKeyValuePairs(int numColumns);
 
 
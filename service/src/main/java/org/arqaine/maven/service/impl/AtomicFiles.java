@@ -0,0 +1,76 @@
+package org.arqaine.maven.service.impl;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Temp-file-and-rename helpers shared by the table writers. The rename replaces the file a
+ * symlink points to rather than the link, and keeps the permissions and owner of the file it
+ * replaces.
+ */
+final class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    // A temporary file in the real target's directory, so the final rename stays on one file system
+    static Path tempFileFor(Path target) throws IOException {
+        Path realTarget = realTarget(target);
+        while (true) {
+            Path temp = realTarget.resolveSibling(realTarget.getFileName() + "."
+                    + Long.toHexString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE) + ".tmp");
+            try {
+                // Created with the default permissions, unlike Files.createTempFile
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException e) {
+                // Try another name
+            }
+        }
+    }
+
+    static void replace(Path temp, Path target) throws IOException {
+        Path realTarget = realTarget(target);
+        copyOwnerAndPermissions(realTarget, temp);
+        try {
+            Files.move(temp, realTarget, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, realTarget, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // The file the path names once symlinks are followed, also for a link to a file not yet written
+    static Path realTarget(Path target) throws IOException {
+        Path absoluteTarget = target.toAbsolutePath();
+        if (Files.exists(absoluteTarget)) {
+            return absoluteTarget.toRealPath();
+        }
+        Path path = absoluteTarget;
+        for (int links = 0; Files.isSymbolicLink(path) && links < 40; links++) {
+            path = path.resolveSibling(Files.readSymbolicLink(path));
+        }
+        return path;
+    }
+
+    private static void copyOwnerAndPermissions(Path from, Path to) throws IOException {
+        PosixFileAttributeView fromView = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+        if (fromView == null || !Files.exists(from)) {
+            return;
+        }
+        PosixFileAttributes attributes = fromView.readAttributes();
+        PosixFileAttributeView toView = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+        try {
+            toView.setGroup(attributes.group());
+            toView.setOwner(attributes.owner());
+        } catch (IOException e) {
+            // Only a privileged user may hand a file to someone else
+        }
+        toView.setPermissions(attributes.permissions());
+    }
+}
@@ -0,0 +1,293 @@
+package org.arqaine.maven.service.impl;
+
+import org.arqaine.maven.model.CompactRow;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary table files, picked by the {@value #EXTENSION} extension.
+ *
+ * <pre>
+ * header      "TBIN", format version (int), string count (int), row count (int)
+ * dictionary  per string: varint byte length, UTF-8 bytes
+ * rows        per row: varint column count, then varint key id and value id per column
+ * </pre>
+ * Every distinct key and value is stored and decoded once, and loaded rows share those strings.
+ */
+public class BinaryTableFormat {
+    public static final String EXTENSION = ".tbin";
+
+    private static final int MAGIC = 0x5442494e; // "TBIN"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // Also true for compressed binary files such as table.tbin.gz
+    public static boolean isBinaryFile(String fileName) {
+        return TableCodec.stripExtension(fileName).toLowerCase().endsWith(EXTENSION);
+    }
+
+    public void load(Path path, Consumer<LinkedHashMap<String, String>> rowConsumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            load(channel, rowConsumer);
+        }
+    }
+
+    public void load(ReadableByteChannel channel, Consumer<LinkedHashMap<String, String>> rowConsumer) throws IOException {
+        Input in = new Input(channel);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a binary table file.");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary table version " + version + ".");
+        }
+
+        // Every count is checked against the bytes left, so a corrupt file never allocates more than it holds
+        int stringCount = in.checkCount(in.readInt(), 1);
+        int rowCount = in.readInt();
+        String[] dictionary = new String[Math.min(stringCount, 1 << 16)];
+        byte[] scratch = new byte[64];
+        for (int i = 0; i < stringCount; i++) {
+            int length = in.readLength();
+            scratch = in.readFully(scratch, length);
+            if (i == dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, (int) Math.min(stringCount, dictionary.length * 2L));
+            }
+            dictionary[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        in.checkCount(rowCount, 1);
+
+        CompactRow.Builder row = new CompactRow.Builder();
+        for (int r = 0; r < rowCount; r++) {
+            int columns = in.checkCount(in.readVarInt(), 2);
+            for (int c = 0; c < columns; c++) {
+                row.put(dictionary[in.readId(stringCount)], dictionary[in.readId(stringCount)]);
+            }
+            rowConsumer.accept(row.build());
+        }
+    }
+
+    static IOException corrupt() {
+        return new IOException("Corrupt table file");
+    }
+
+    public void write(List<? extends Map<String, String>> tableData, Path target) throws IOException {
+        Path temp = AtomicFiles.tempFileFor(target);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                write(tableData, channel);
+                channel.force(false);
+            }
+            AtomicFiles.replace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public void write(List<? extends Map<String, String>> tableData, WritableByteChannel channel) throws IOException {
+        // Number the distinct strings in order of first appearance
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        for (Map<String, String> row : tableData) {
+            for (Map.Entry<String, String> entry : row.entrySet()) {
+                if (ids.putIfAbsent(entry.getKey(), dictionary.size()) == null) {
+                    dictionary.add(entry.getKey());
+                }
+                if (ids.putIfAbsent(entry.getValue(), dictionary.size()) == null) {
+                    dictionary.add(entry.getValue());
+                }
+            }
+        }
+
+        Output out = new Output(channel);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(dictionary.size());
+        out.writeInt(tableData.size());
+        for (String s : dictionary) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+        for (Map<String, String> row : tableData) {
+            out.writeVarInt(row.size());
+            for (Map.Entry<String, String> entry : row.entrySet()) {
+                out.writeVarInt(ids.get(entry.getKey()));
+                out.writeVarInt(ids.get(entry.getValue()));
+            }
+        }
+        out.flush();
+    }
+
+    public static void textToBinary(Path textFile, Path binaryFile) throws IOException {
+        List<LinkedHashMap<String, String>> rows = new ArrayList<>();
+        try (InputStreamReader reader = new InputStreamReader(Files.newInputStream(textFile), StandardCharsets.UTF_8)) {
+            new TableTextParser().parse(reader, rows::add);
+        }
+        new BinaryTableFormat().write(rows, binaryFile);
+    }
+
+    public static void binaryToText(Path binaryFile, Path textFile) throws IOException {
+        List<LinkedHashMap<String, String>> rows = new ArrayList<>();
+        new BinaryTableFormat().load(binaryFile, rows::add);
+        new TableTextWriter().write(rows, textFile);
+    }
+
+    private static final class Input {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        // Bytes the channel has not delivered yet, known for files only
+        private long unread = Long.MAX_VALUE;
+
+        private Input(ReadableByteChannel channel) throws IOException {
+            this.channel = channel;
+            if (channel instanceof FileChannel) {
+                FileChannel file = (FileChannel) channel;
+                unread = file.size() - file.position();
+            }
+            buffer.flip();
+        }
+
+        private long remaining() {
+            return unread == Long.MAX_VALUE ? Long.MAX_VALUE : unread + buffer.remaining();
+        }
+
+        // A count of items still to come that take at least minBytes each
+        private int checkCount(int count, int minBytes) throws IOException {
+            if (count < 0 || (long) count * minBytes > remaining()) {
+                throw corrupt();
+            }
+            return count;
+        }
+
+        private int readLength() throws IOException {
+            int length = readVarInt();
+            if (length < 0 || length > remaining()) {
+                throw corrupt();
+            }
+            return length;
+        }
+
+        private int readId(int stringCount) throws IOException {
+            int id = readVarInt();
+            if (id < 0 || id >= stringCount) {
+                throw corrupt();
+            }
+            return id;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    throw new EOFException("Corrupt table file: it ends unexpectedly.");
+                }
+                if (unread != Long.MAX_VALUE) {
+                    unread -= read;
+                }
+            }
+            buffer.flip();
+        }
+
+        private int readInt() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                ensure(1);
+                byte b = buffer.get();
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw corrupt();
+        }
+
+        // Grows the target only as the bytes arrive, so a bogus length cannot allocate ahead of the data
+        private byte[] readFully(byte[] target, int length) throws IOException {
+            int offset = 0;
+            while (offset < length) {
+                ensure(1);
+                if (offset == target.length) {
+                    target = Arrays.copyOf(target, (int) Math.min(length, target.length * 2L));
+                }
+                int chunk = Math.min(Math.min(length - offset, buffer.remaining()), target.length - offset);
+                buffer.get(target, offset, chunk);
+                offset += chunk;
+            }
+            return target;
+        }
+    }
+
+    private static final class Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void writeInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7f) != 0) {
+                buffer.put((byte) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int chunk = Math.min(bytes.length - offset, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
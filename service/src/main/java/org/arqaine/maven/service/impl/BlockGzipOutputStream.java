@@ -0,0 +1,147 @@
+package org.arqaine.maven.service.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a block-compressed gzip file: a sequence of independent gzip members, each holding
+ * whole lines of about {@link #DEFAULT_BLOCK_SIZE} uncompressed bytes.
+ *
+ * Every member carries its total length in a {@code TB} extra field, so readers can find the
+ * members without inflating them and decompress them in parallel. The file stays a valid
+ * multi-member gzip file for any other reader.
+ */
+public class BlockGzipOutputStream extends OutputStream {
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    static final int HEADER_SIZE = 20;
+    static final int TRAILER_SIZE = 8;
+    static final byte SUBFIELD_ID1 = 'T';
+    static final byte SUBFIELD_ID2 = 'B';
+
+    private final OutputStream out;
+    private final int blockSize;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+
+    private byte[] block;
+    private int count;
+    private byte[] compressed = new byte[8192];
+    private int members;
+    private boolean closed;
+
+    public BlockGzipOutputStream(OutputStream out) {
+        this(out, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockGzipOutputStream(OutputStream out, int blockSize) {
+        this.out = out;
+        this.blockSize = blockSize;
+        this.block = new byte[blockSize + 1024];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureCapacity(1);
+        block[count++] = (byte) b;
+        if (count >= blockSize) {
+            writeCompleteLines();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, block, count, length);
+        count += length;
+        if (count >= blockSize) {
+            writeCompleteLines();
+        }
+    }
+
+    // Blocks end after a line feed; a line longer than a block makes its block grow
+    private void writeCompleteLines() throws IOException {
+        int end = count;
+        while (end > 0 && block[end - 1] != '\n') {
+            end--;
+        }
+        if (end == 0) {
+            return;
+        }
+        writeMember(block, end);
+        System.arraycopy(block, end, block, 0, count - end);
+        count -= end;
+    }
+
+    private void ensureCapacity(int length) {
+        if (count + length > block.length) {
+            block = Arrays.copyOf(block, Math.max(block.length * 2, count + length));
+        }
+    }
+
+    private void writeMember(byte[] data, int length) throws IOException {
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+        crc.reset();
+        crc.update(data, 0, length);
+
+        int memberSize = HEADER_SIZE + compressedLength + TRAILER_SIZE;
+        byte[] header = {
+                0x1f, (byte) 0x8b, 8, 4,  // magic, deflate, FEXTRA
+                0, 0, 0, 0,               // no modification time
+                0, (byte) 255,            // extra flags, unknown OS
+                8, 0,                     // extra field length
+                SUBFIELD_ID1, SUBFIELD_ID2, 4, 0,
+                (byte) memberSize, (byte) (memberSize >>> 8), (byte) (memberSize >>> 16), (byte) (memberSize >>> 24)
+        };
+        out.write(header);
+        out.write(compressed, 0, compressedLength);
+        writeIntLittleEndian((int) crc.getValue());
+        writeIntLittleEndian(length);
+        members++;
+    }
+
+    private void writeIntLittleEndian(int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    // Writes the last partial block; an empty file still gets one member so it stays valid gzip
+    public void finish() throws IOException {
+        if (count > 0 || members == 0) {
+            writeMember(block, count);
+            count = 0;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                finish();
+                out.close();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.arqaine.maven.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Loads text tables written by {@link BlockGzipOutputStream}, inflating and parsing the gzip
+ * members on a {@link ForkJoinPool} and handing the rows over in file order. A file whose first
+ * member has no block-size subfield, such as plain gzip written by another tool, is inflated
+ * sequentially instead.
+ */
+public class BlockGzipTableLoader {
+    // Deflate never expands more than this, so a larger ISIZE is a corrupt trailer
+    private static final int MAX_INFLATE_RATIO = 1032;
+
+    private final ForkJoinPool pool;
+
+    public BlockGzipTableLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public BlockGzipTableLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public void load(Path path, Consumer<LinkedHashMap<String, String>> rowConsumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > 0 && (size < BlockGzipOutputStream.HEADER_SIZE
+                    || !isBlockHeader(read(channel, 0, BlockGzipOutputStream.HEADER_SIZE)))) {
+                loadSequentially(path, rowConsumer);
+                return;
+            }
+
+            List<ForkJoinTask<List<LinkedHashMap<String, String>>>> tasks = new ArrayList<>();
+            long position = 0;
+            while (position < size) {
+                long memberStart = position;
+                int memberSize = memberSize(channel, memberStart);
+                // An empty or oversized member would loop forever or read past the end
+                if (memberSize < BlockGzipOutputStream.HEADER_SIZE + BlockGzipOutputStream.TRAILER_SIZE
+                        || memberSize > size - memberStart) {
+                    throw BinaryTableFormat.corrupt();
+                }
+                tasks.add(pool.submit(() -> loadMember(channel, memberStart, memberSize)));
+                position += memberSize;
+            }
+
+            for (ForkJoinTask<List<LinkedHashMap<String, String>>> task : tasks) {
+                try {
+                    task.join().forEach(rowConsumer);
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+
+    private static void loadSequentially(Path path, Consumer<LinkedHashMap<String, String>> rowConsumer)
+            throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(path), 1 << 16)) {
+            new TableTextParser().parse(new InputStreamReader(in, StandardCharsets.UTF_8), rowConsumer);
+        }
+    }
+
+    private static boolean isBlockHeader(ByteBuffer header) {
+        return (header.get(0) & 0xff) == 0x1f && (header.get(1) & 0xff) == 0x8b && header.get(2) == 8
+                && (header.get(3) & 4) != 0 && header.getShort(10) == 8
+                && header.get(12) == BlockGzipOutputStream.SUBFIELD_ID1
+                && header.get(13) == BlockGzipOutputStream.SUBFIELD_ID2;
+    }
+
+    private static int memberSize(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = read(channel, position, BlockGzipOutputStream.HEADER_SIZE);
+        if (!isBlockHeader(header)) {
+            throw new IOException("Not a block-compressed table file at offset " + position + ".");
+        }
+        return header.getInt(16);
+    }
+
+    private static List<LinkedHashMap<String, String>> loadMember(FileChannel channel, long position, int memberSize) {
+        try {
+            ByteBuffer member = read(channel, position, memberSize);
+            int dataLength = memberSize - BlockGzipOutputStream.HEADER_SIZE - BlockGzipOutputStream.TRAILER_SIZE;
+            int expectedCrc = member.getInt(memberSize - 8);
+            int uncompressedLength = member.getInt(memberSize - 4);
+            if (uncompressedLength < 0 || uncompressedLength > (long) (dataLength + 1) * MAX_INFLATE_RATIO) {
+                throw BinaryTableFormat.corrupt();
+            }
+
+            byte[] uncompressed = new byte[uncompressedLength];
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(member.array(), BlockGzipOutputStream.HEADER_SIZE, dataLength);
+                int inflated = 0;
+                while (inflated < uncompressedLength && !inflater.finished()) {
+                    int n = inflater.inflate(uncompressed, inflated, uncompressedLength - inflated);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new EOFException("Truncated block at offset " + position + ".");
+                    }
+                    inflated += n;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt block at offset " + position + ": " + e.getMessage(), e);
+            } finally {
+                inflater.end();
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(uncompressed, 0, uncompressedLength);
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Checksum mismatch in block at offset " + position + ".");
+            }
+
+            // Blocks end on a line boundary, so each one parses on its own
+            List<LinkedHashMap<String, String>> rows = new ArrayList<>();
+            new TableTextParser().parse(new InputStreamReader(new ByteArrayInputStream(uncompressed), StandardCharsets.UTF_8), rows::add);
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Block-compressed table file ends unexpectedly.");
+            }
+        }
+        return buffer;
+    }
+}
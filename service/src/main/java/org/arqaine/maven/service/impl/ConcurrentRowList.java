@@ -0,0 +1,390 @@
+package org.arqaine.maven.service.impl;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ObjIntConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Table rows that can be read from any number of threads while they are being changed.
+ *
+ * Readers take no locks: they work on a {@link #snapshot()} of the rows and see every row either
+ * before or after a change, never halfway. The rows sit in an immutable counted B-tree like the
+ * one of {@link org.arqaine.maven.model.IndexedRowList}, and a change copies only the path from
+ * the root to the row it touches, so inserting anywhere, replacing and getting a row take
+ * O(log n) and a snapshot stays as it was taken. Rows are replaced rather than modified, one
+ * lock stripe per group of row indexes, so changes to different rows run in parallel. Inserts,
+ * removals and {@link #swap} hold the structure lock, which keeps row changes out for that moment.
+ *
+ * Rows handed to this list must not be modified afterwards; {@link #update} copies them instead.
+ */
+public class ConcurrentRowList extends AbstractList<LinkedHashMap<String, String>> {
+    private static final int STRIPES = 64;
+    static final int LEAF_CAPACITY = 64;
+    static final int BRANCH_CAPACITY = 32;
+
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    // Changes to different rows publish their paths one after another
+    private final AtomicReference<Node> root;
+
+    public ConcurrentRowList() {
+        this(new ArrayList<>());
+    }
+
+    public ConcurrentRowList(Collection<LinkedHashMap<String, String>> rows) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        root = new AtomicReference<>(build(rows));
+    }
+
+    @Override
+    public LinkedHashMap<String, String> get(int index) {
+        return get(root.get(), index);
+    }
+
+    @Override
+    public int size() {
+        return root.get().size;
+    }
+
+    @Override
+    public Iterator<LinkedHashMap<String, String>> iterator() {
+        return snapshot().iterator();
+    }
+
+    // The rows as they are now; later changes do not show up in it
+    public List<LinkedHashMap<String, String>> snapshot() {
+        return new Snapshot(root.get());
+    }
+
+    @Override
+    public LinkedHashMap<String, String> set(int index, LinkedHashMap<String, String> row) {
+        List<LinkedHashMap<String, String>> previous = new ArrayList<>(1);
+        update(index, current -> {
+            previous.add(current);
+            return row;
+        }, null);
+        return previous.get(0);
+    }
+
+    /**
+     * Replaces a row with what {@code change} makes of it while no other thread can change that
+     * row. Returns the new row, or null and leaves the row alone if {@code change} returns null.
+     * The listener is called before the lock is released, so changes to one row reach it in the
+     * order they were made.
+     */
+    public LinkedHashMap<String, String> update(int index, UnaryOperator<LinkedHashMap<String, String>> change,
+                                                ObjIntConsumer<LinkedHashMap<String, String>> listener) {
+        structureLock.readLock().lock();
+        try {
+            ReentrantLock stripe = stripes[index & (STRIPES - 1)];
+            stripe.lock();
+            try {
+                LinkedHashMap<String, String> row = change.apply(get(root.get(), index));
+                if (row == null) {
+                    return null;
+                }
+                // Other stripes may publish in between, but none of them changes this row
+                Node current;
+                do {
+                    current = root.get();
+                } while (!root.compareAndSet(current, replace(current, index, row)));
+                if (listener != null) {
+                    listener.accept(row, index);
+                }
+                return row;
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(int index, LinkedHashMap<String, String> row) {
+        insert(index, row, null);
+    }
+
+    // Inserts a row and tells the listener before any other change can happen
+    public void insert(int index, LinkedHashMap<String, String> row,
+                       ObjIntConsumer<LinkedHashMap<String, String>> listener) {
+        structureLock.writeLock().lock();
+        try {
+            Node current = root.get();
+            if (index < 0 || index > current.size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.size);
+            }
+            Node[] parts = insert(current, index, row);
+            root.set(parts.length == 1 ? parts[0] : new Branch(parts));
+            if (listener != null) {
+                listener.accept(row, index);
+            }
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public LinkedHashMap<String, String> remove(int index) {
+        structureLock.writeLock().lock();
+        try {
+            Node current = root.get();
+            LinkedHashMap<String, String> removed = get(current, index);
+            Node rest = remove(current, index);
+            root.set(rest != null ? rest : new Leaf(new Object[0]));
+            return removed;
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        swap(new ArrayList<>(), null);
+    }
+
+    // Replaces every row at once; readers see either the old table or the new one
+    public void swap(Collection<LinkedHashMap<String, String>> rows, Runnable listener) {
+        Node replacement = build(rows);
+        structureLock.writeLock().lock();
+        try {
+            root.set(replacement);
+            if (listener != null) {
+                listener.run();
+            }
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    // Held by a thread that needs the rows to stay as they are, such as one taking a snapshot to save
+    public Lock structureLock() {
+        return structureLock.writeLock();
+    }
+
+    private abstract static class Node {
+        final int size;
+
+        Node(int size) {
+            this.size = size;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] rows;
+
+        Leaf(Object[] rows) {
+            super(rows.length);
+            this.rows = rows;
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node[] children;
+
+        Branch(Node[] children) {
+            super(sizeOf(children));
+            this.children = children;
+        }
+
+        private static int sizeOf(Node[] children) {
+            int size = 0;
+            for (Node child : children) {
+                size += child.size;
+            }
+            return size;
+        }
+    }
+
+    // Full leaves and branches built bottom up, as a loaded or sorted table arrives in one piece
+    private static Node build(Collection<LinkedHashMap<String, String>> rows) {
+        Object[] all = rows.toArray();
+        if (all.length <= LEAF_CAPACITY) {
+            return new Leaf(all);
+        }
+        List<Node> level = new ArrayList<>(all.length / LEAF_CAPACITY + 1);
+        for (int from = 0; from < all.length; from += LEAF_CAPACITY) {
+            level.add(new Leaf(Arrays.copyOfRange(all, from, Math.min(all.length, from + LEAF_CAPACITY))));
+        }
+        while (level.size() > 1) {
+            List<Node> parents = new ArrayList<>(level.size() / BRANCH_CAPACITY + 1);
+            for (int from = 0; from < level.size(); from += BRANCH_CAPACITY) {
+                List<Node> children = level.subList(from, Math.min(level.size(), from + BRANCH_CAPACITY));
+                parents.add(new Branch(children.toArray(new Node[0])));
+            }
+            level = parents;
+        }
+        return level.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static LinkedHashMap<String, String> get(Node node, int index) {
+        if (index < 0 || index >= node.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + node.size);
+        }
+        while (node instanceof Branch) {
+            Node[] children = ((Branch) node).children;
+            int i = 0;
+            while (index >= children[i].size) {
+                index -= children[i].size;
+                i++;
+            }
+            node = children[i];
+        }
+        return (LinkedHashMap<String, String>) ((Leaf) node).rows[index];
+    }
+
+    private static Node replace(Node node, int index, Object row) {
+        if (node instanceof Leaf) {
+            Object[] rows = ((Leaf) node).rows.clone();
+            rows[index] = row;
+            return new Leaf(rows);
+        }
+        Node[] children = ((Branch) node).children.clone();
+        int i = 0;
+        while (index >= children[i].size) {
+            index -= children[i].size;
+            i++;
+        }
+        children[i] = replace(children[i], index, row);
+        return new Branch(children);
+    }
+
+    // The node with the row inserted, split in two when it outgrows its capacity
+    private static Node[] insert(Node node, int index, Object row) {
+        if (node instanceof Leaf) {
+            Object[] rows = ((Leaf) node).rows;
+            Object[] grown = new Object[rows.length + 1];
+            System.arraycopy(rows, 0, grown, 0, index);
+            grown[index] = row;
+            System.arraycopy(rows, index, grown, index + 1, rows.length - index);
+            if (grown.length <= LEAF_CAPACITY) {
+                return new Node[]{new Leaf(grown)};
+            }
+            // Appending leaves the full leaf as it is, so a table built row by row keeps full leaves
+            int half = index == rows.length ? rows.length : grown.length / 2;
+            return new Node[]{new Leaf(Arrays.copyOfRange(grown, 0, half)),
+                    new Leaf(Arrays.copyOfRange(grown, half, grown.length))};
+        }
+        Node[] children = ((Branch) node).children;
+        int i = 0;
+        while (i < children.length - 1 && index >= children[i].size) {
+            index -= children[i].size;
+            i++;
+        }
+        Node[] parts = insert(children[i], index, row);
+        Node[] grown = new Node[children.length + parts.length - 1];
+        System.arraycopy(children, 0, grown, 0, i);
+        System.arraycopy(parts, 0, grown, i, parts.length);
+        System.arraycopy(children, i + 1, grown, i + parts.length, children.length - i - 1);
+        if (grown.length <= BRANCH_CAPACITY) {
+            return new Node[]{new Branch(grown)};
+        }
+        int half = grown.length / 2;
+        return new Node[]{new Branch(Arrays.copyOfRange(grown, 0, half)),
+                new Branch(Arrays.copyOfRange(grown, half, grown.length))};
+    }
+
+    // The node without the row, or null once it is empty; tables shrink as a whole with swap
+    private static Node remove(Node node, int index) {
+        if (node instanceof Leaf) {
+            Object[] rows = ((Leaf) node).rows;
+            if (rows.length == 1) {
+                return null;
+            }
+            Object[] shrunk = new Object[rows.length - 1];
+            System.arraycopy(rows, 0, shrunk, 0, index);
+            System.arraycopy(rows, index + 1, shrunk, index, rows.length - index - 1);
+            return new Leaf(shrunk);
+        }
+        Node[] children = ((Branch) node).children;
+        int i = 0;
+        while (index >= children[i].size) {
+            index -= children[i].size;
+            i++;
+        }
+        Node child = remove(children[i], index);
+        if (child != null) {
+            Node[] copy = children.clone();
+            copy[i] = child;
+            return new Branch(copy);
+        }
+        if (children.length == 1) {
+            return null;
+        }
+        Node[] shrunk = new Node[children.length - 1];
+        System.arraycopy(children, 0, shrunk, 0, i);
+        System.arraycopy(children, i + 1, shrunk, i, children.length - i - 1);
+        return new Branch(shrunk);
+    }
+
+    private static final class Snapshot extends AbstractList<LinkedHashMap<String, String>> {
+        private final Node root;
+
+        private Snapshot(Node root) {
+            this.root = root;
+        }
+
+        @Override
+        public LinkedHashMap<String, String> get(int index) {
+            return ConcurrentRowList.get(root, index);
+        }
+
+        @Override
+        public int size() {
+            return root.size;
+        }
+
+        // Walks a leaf at a time instead of descending from the root for every row
+        @Override
+        public Iterator<LinkedHashMap<String, String>> iterator() {
+            return new Iterator<LinkedHashMap<String, String>>() {
+                private int index;
+                private Object[] leaf = new Object[0];
+                private int offset;
+
+                @Override
+                public boolean hasNext() {
+                    return index < root.size;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public LinkedHashMap<String, String> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    if (offset == leaf.length) {
+                        Node node = root;
+                        offset = index;
+                        while (node instanceof Branch) {
+                            Node[] children = ((Branch) node).children;
+                            int i = 0;
+                            while (offset >= children[i].size) {
+                                offset -= children[i].size;
+                                i++;
+                            }
+                            node = children[i];
+                        }
+                        leaf = ((Leaf) node).rows;
+                    }
+                    index++;
+                    return (LinkedHashMap<String, String>) leaf[offset++];
+                }
+            };
+        }
+    }
+}
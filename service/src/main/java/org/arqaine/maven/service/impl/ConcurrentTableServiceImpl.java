@@ -0,0 +1,557 @@
+package org.arqaine.maven.service.impl;
+
+import org.arqaine.maven.model.SearchHit;
+import org.arqaine.maven.model.Table;
+import org.arqaine.maven.service.TableService;
+import org.arqaine.maven.util.InputHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.function.Predicate;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * A {@link TableService} that can be used from several threads at once.
+ *
+ * The table's rows are kept in a {@link ConcurrentRowList}: searches and printing read a snapshot
+ * without locking, with large tables searched across cores by {@link ParallelRowSearch}; edits
+ * and sorts copy the row they change under that row's lock stripe, and inserts and resets
+ * publish the new rows in one step. Loading and saving files is left to a
+ * {@link TableServiceImpl} working on the same rows.
+ */
+public class ConcurrentTableServiceImpl implements TableService {
+    private static final int COMPACT_THRESHOLD = 1000;
+
+    private final ConcurrentRowList rows;
+    private final Scanner scanner;
+    private final InputHandler inputHandler;
+    private final TableServiceImpl files;
+    private final ParallelRowSearch rowSearch = new ParallelRowSearch();
+
+    // Key renames and new rows pick keys no other row uses, so only one of them runs at a time
+    private final Lock keyLock = new ReentrantLock();
+    private volatile KeyRegistry keyRegistry;
+
+    private volatile TableChangeLog changeLog;
+    private volatile String tableFilePath;
+    private final PendingChanges pendingChanges = new PendingChanges();
+    private volatile WriteBehindFlusher writeBehind;
+
+    // Snapshots taken and written by compact(), so an older one never replaces a newer one
+    private final Object saves = new Object();
+    private long snapshots;
+    private long savedSnapshot;
+
+    public ConcurrentTableServiceImpl(Table table, Scanner scanner, InputHandler inputHandler) {
+        this.rows = new ConcurrentRowList(table.getTableData());
+        table.setTableData(rows);
+        this.scanner = scanner;
+        this.inputHandler = inputHandler;
+        this.files = new TableServiceImpl(table, scanner, inputHandler);
+        this.keyRegistry = new KeyRegistry(rows);
+    }
+
+    public ConcurrentRowList getRows() {
+        return rows;
+    }
+
+    public LoadMode getLoadMode() {
+        return files.getLoadMode();
+    }
+
+    public void setLoadMode(LoadMode loadMode) {
+        files.setLoadMode(loadMode);
+    }
+
+    public void setRandomGenerator(RandomTableGenerator randomGenerator) {
+        files.setRandomGenerator(randomGenerator);
+    }
+
+    @Override
+    public String search(String searchChoice, String target) {
+        List<SearchHit> hits;
+        if (searchChoice.equalsIgnoreCase("K")) {
+            hits = rowSearch.findKeys(rows.snapshot(), target);
+        } else if (searchChoice.equalsIgnoreCase("V")) {
+            hits = rowSearch.findValues(rows.snapshot(), target);
+        } else {
+            hits = new ArrayList<>();
+        }
+
+        List<String> results = new ArrayList<>();
+        for (SearchHit hit : hits) {
+            results.add("Found '" + target + "' in row " + hit.getRowIndex() +
+                    " with key '" + hit.getKey() + "' and value '" + hit.getValue() + "'.");
+        }
+
+        if (results.isEmpty()) {
+            return "No instances of '" + target + "' found.";
+        }
+
+        return String.join("\n", results);
+    }
+
+    @Override
+    public int searchHits(String searchChoice, String target, int limit, Predicate<SearchHit> handler) {
+        if (!searchChoice.equalsIgnoreCase("K") && !searchChoice.equalsIgnoreCase("V")) {
+            return 0;
+        }
+        // Streamed hits always come from a scan: nothing but the current hit is held in memory
+        return ParallelRowSearch.stream(rows.snapshot(), target, searchChoice.equalsIgnoreCase("K"), limit, handler);
+    }
+
+    // The answers are read before any lock is taken, a slow user must not hold up other writers
+    @Override
+    public void editCell(String keyToEdit, Runnable answersRead) {
+        try {
+            List<Integer> rowIndexes = rowsWithKey(keyToEdit);
+            List<String[]> answers = new ArrayList<>(rowIndexes.size());
+            for (int i = 0; i < rowIndexes.size(); i++) {
+                answers.add(readEditAnswer());
+            }
+            answersRead.run();
+
+            if (rowIndexes.isEmpty()) {
+                throw new IllegalArgumentException("Key '" + keyToEdit + "' not found in any row.");
+            }
+            for (int n = 0; n < rowIndexes.size(); n++) {
+                String[] answer = answers.get(n);
+                if (answer == null) {
+                    continue;
+                }
+                if (answer[0].equals("K")) {
+                    editKey(keyToEdit, rowIndexes.get(n), answer[1]);
+                } else {
+                    editValue(keyToEdit, rowIndexes.get(n), answer[1]);
+                }
+            }
+
+        } catch (IllegalArgumentException e) {
+            inputHandler.printCustomMessage(e.getMessage());
+        } catch (IndexOutOfBoundsException e) {
+            inputHandler.printCustomMessage("Invalid row index. No changes made.");
+        }
+    }
+
+    private List<Integer> rowsWithKey(String key) {
+        List<Integer> rowIndexes = new ArrayList<>();
+        int i = 0;
+        for (LinkedHashMap<String, String> row : rows.snapshot()) {
+            if (row.containsKey(key)) {
+                rowIndexes.add(i);
+            }
+            i++;
+        }
+        return rowIndexes;
+    }
+
+    // The action (K or V) and the new key or value for one row holding the key
+    private String[] readEditAnswer() {
+        String actionChoice = inputHandler.getChoice(scanner, "Do you want to edit the key (K) or the value (V)? ");
+
+        if (actionChoice.equalsIgnoreCase("K")) {
+            return new String[]{"K", inputHandler.getUserInputString(scanner, "Enter the new key: ")};
+        } else if (actionChoice.equalsIgnoreCase("V")) {
+            return new String[]{"V", inputHandler.getUserInputString(scanner, "Enter the new value: ")};
+        }
+        return null;
+    }
+
+    private void editKey(String keyToEdit, int rowIndex, String newKey) {
+        keyLock.lock();
+        try {
+            rows.update(rowIndex, row -> {
+                requireKey(row, keyToEdit, rowIndex);
+                if (row.containsKey(newKey)) {
+                    throw new IllegalArgumentException("Key already exists.");
+                }
+                if (keyRegistry.contains(newKey)) {
+                    throw new IllegalArgumentException("Key '" + newKey + "' already exists in other rows.");
+                }
+                LinkedHashMap<String, String> updatedRow = new LinkedHashMap<>();
+                for (Map.Entry<String, String> entry : row.entrySet()) {
+                    updatedRow.put(entry.getKey().equals(keyToEdit) ? newKey : entry.getKey(), entry.getValue());
+                }
+                return updatedRow;
+            }, (row, index) -> {
+                keyRegistry.remove(keyToEdit);
+                keyRegistry.add(newKey);
+                logRowReplaced(row, index);
+            });
+        } finally {
+            keyLock.unlock();
+        }
+        afterChange();
+        inputHandler.printCustomMessage("Key updated successfully.");
+    }
+
+    private void editValue(String keyToEdit, int rowIndex, String newValue) {
+        rows.update(rowIndex, row -> {
+            requireKey(row, keyToEdit, rowIndex);
+            LinkedHashMap<String, String> updatedRow = new LinkedHashMap<>(row);
+            updatedRow.put(keyToEdit, newValue);
+            return updatedRow;
+        }, (row, index) -> {
+            if (changeLog != null) {
+                try {
+                    changeLog.valueChanged(index, keyToEdit, newValue);
+                } catch (IOException e) {
+                    inputHandler.printCustomMessage("An error occurred while logging the change: " + e.getMessage());
+                }
+            }
+            markDirty();
+        });
+        afterChange();
+        inputHandler.printCustomMessage("Value updated successfully.");
+    }
+
+    // Another thread may have inserted rows since the key was found
+    private static void requireKey(LinkedHashMap<String, String> row, String key, int rowIndex) {
+        if (!row.containsKey(key)) {
+            throw new IllegalArgumentException("Row " + rowIndex + " changed and no longer has key '" + key + "'. No changes made.");
+        }
+    }
+
+    @Override
+    public String printTable() {
+        StringBuilder printedTable = new StringBuilder();
+        for (LinkedHashMap<String, String> row : rows.snapshot()) {
+            for (Map.Entry<String, String> entry : row.entrySet()) {
+                printedTable.append(entry.getKey()).append(":").append(entry.getValue()).append(" | ");
+            }
+            printedTable.append("\n");
+        }
+
+        return printedTable.toString();
+    }
+
+    @Override
+    public int printRows(Writer out, int fromRow, int toRow) throws IOException {
+        return TablePrinter.writeRows(rows.snapshot(), fromRow, toRow, out);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public String reset(int newRows, int newCols) {
+        // The new table is built aside and swapped in, readers never see it half done
+        List<LinkedHashMap<String, String>> newTable;
+        try {
+            newTable = files.getRandomGenerator().rows(newRows, newCols);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage() + " Table not reset.";
+        }
+        KeyRegistry newRegistry = new KeyRegistry(newTable);
+        // Key writers hold keyLock, so none of them registers a key in the registry being dropped
+        keyLock.lock();
+        try {
+            rows.swap(newTable, () -> {
+                keyRegistry = newRegistry;
+                synchronized (pendingChanges) {
+                    pendingChanges.changed();
+                }
+            });
+        } finally {
+            keyLock.unlock();
+        }
+
+        if (changeLog != null) {
+            compact();
+        } else if (writeBehind != null) {
+            writeBehind.changed();
+        }
+        return "Table reset with new random data.";
+    }
+
+    @Override
+    public String addNewRow(int rowIndex, int numColumns) {
+        keyLock.lock();
+        try {
+            LinkedHashMap<String, String> newRow = files.getRandomGenerator().row(numColumns, keyRegistry);
+            rows.insert(rowIndex, newRow, (row, index) -> {
+                keyRegistry.addRow(row);
+                if (changeLog != null) {
+                    try {
+                        changeLog.rowInserted(index, row);
+                    } catch (IOException e) {
+                        inputHandler.printCustomMessage("An error occurred while logging the change: " + e.getMessage());
+                    }
+                }
+                markDirty();
+            });
+        } catch (IndexOutOfBoundsException e) {
+            return "Invalid row index. Row not inserted.";
+        } catch (IllegalArgumentException e) {
+            // Too many columns for the keys of a row
+            return e.getMessage() + " Row not inserted.";
+        } finally {
+            keyLock.unlock();
+        }
+        afterChange();
+        return "New row inserted successfully!";
+    }
+
+    @Override
+    public String sortRow(int rowIndex) {
+        try {
+            rows.update(rowIndex, row -> TableSorter.sortCells(row, TableSorter.BY_KEY_AND_VALUE), this::logRowReplaced);
+        } catch (IndexOutOfBoundsException e) {
+            return "Invalid row index. No changes made.";
+        }
+        afterChange();
+        return "Row " + rowIndex + " sorted successfully.";
+    }
+
+    @Override
+    public String sortAllRows(String sortChoice) {
+        Comparator<Map.Entry<String, String>> order;
+        try {
+            order = TableSorter.cellOrder(sortChoice);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        replaceRows(snapshot -> TableSorter.sortCellsOfEveryRow(snapshot, order));
+        return "Every row sorted by " + (sortChoice.equalsIgnoreCase("K") ? "key." : "value.");
+    }
+
+    @Override
+    public String sortRowsByKey(String key) {
+        if (!keyRegistry.contains(key)) {
+            return "Key '" + key + "' not found in any row.";
+        }
+        replaceRows(snapshot -> TableSorter.orderRowsByKey(snapshot, key));
+        return "Rows ordered by key '" + key + "'.";
+    }
+
+    // Sorts while writers wait, so no change made meanwhile is lost when the rows are swapped
+    private void replaceRows(UnaryOperator<List<LinkedHashMap<String, String>>> sort) {
+        Lock lock = rows.structureLock();
+        lock.lock();
+        try {
+            rows.swap(sort.apply(rows.snapshot()), () -> {
+                synchronized (pendingChanges) {
+                    pendingChanges.changed();
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+
+        if (changeLog != null) {
+            compact();
+        } else if (writeBehind != null) {
+            writeBehind.changed();
+        }
+    }
+
+    private void logRowReplaced(LinkedHashMap<String, String> row, int rowIndex) {
+        if (changeLog != null) {
+            try {
+                changeLog.rowReplaced(rowIndex, row);
+            } catch (IOException e) {
+                inputHandler.printCustomMessage("An error occurred while logging the change: " + e.getMessage());
+            }
+        }
+        markDirty();
+    }
+
+    private void markDirty() {
+        synchronized (pendingChanges) {
+            pendingChanges.changed();
+        }
+    }
+
+    // Runs once the row locks are released, compaction needs the rows to itself
+    private void afterChange() {
+        WriteBehindFlusher flusher = writeBehind;
+        TableChangeLog log = changeLog;
+        if (flusher != null) {
+            flusher.changed();
+        } else if (log != null && log.size() >= COMPACT_THRESHOLD) {
+            compact();
+        }
+    }
+
+    @Override
+    public List<LinkedHashMap<String, String>> loadTableFromJar(String filePath, String outputFile) {
+        List<LinkedHashMap<String, String>> loaded = files.loadTableFromJar(filePath, outputFile);
+        rebuildKeyRegistry();
+        return loaded;
+    }
+
+    @Override
+    public List<LinkedHashMap<String, String>> loadTableFromFile(String filePath, Runnable loaded) {
+        List<LinkedHashMap<String, String>> tableData = files.loadTableFromFile(filePath, loaded);
+        rebuildKeyRegistry();
+        return tableData;
+    }
+
+    // Loaded rows are appended without telling the registry
+    private void rebuildKeyRegistry() {
+        keyLock.lock();
+        Lock lock = rows.structureLock();
+        lock.lock();
+        try {
+            keyRegistry = new KeyRegistry(rows.snapshot());
+        } finally {
+            lock.unlock();
+            keyLock.unlock();
+        }
+    }
+
+    @Override
+    public void saveTableToFile(List<LinkedHashMap<String, String>> tableData, String filePath) {
+        files.saveTableToFile(tableData, filePath);
+    }
+
+    @Override
+    public List<LinkedHashMap<String, String>> initializeTable(String[] args, Table table) {
+        List<LinkedHashMap<String, String>> loaded = files.initializeTable(args, table);
+        rebuildKeyRegistry();
+        return loaded;
+    }
+
+    @Override
+    public void enableChangeLog(String filePath) {
+        keyLock.lock();
+        Lock lock = rows.structureLock();
+        lock.lock();
+        try {
+            if (changeLog != null) {
+                changeLog.close();
+                changeLog = null;
+            }
+            TableChangeLog log = new TableChangeLog(Paths.get(filePath));
+            tableFilePath = filePath;
+
+            List<LinkedHashMap<String, String>> replayedRows = new ArrayList<>(rows);
+            int replayed = log.replay(replayedRows);
+            if (replayed > 0) {
+                rows.swap(replayedRows, null);
+                keyRegistry = new KeyRegistry(replayedRows);
+            }
+            changeLog = log;
+            if (replayed > 0 || !new File(filePath).exists()) {
+                compact();
+            } else {
+                log.truncate();
+            }
+        } catch (IOException e) {
+            inputHandler.printCustomMessage("An error occurred while opening the change log: " + e.getMessage());
+        } finally {
+            lock.unlock();
+            keyLock.unlock();
+        }
+    }
+
+    @Override
+    public synchronized void enableWriteBehind(String filePath, long delayMillis, int maxOperations) {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+        if (tableFilePath == null) {
+            tableFilePath = filePath;
+        }
+        writeBehind = new WriteBehindFlusher(this::flush, delayMillis, maxOperations);
+    }
+
+    @Override
+    public void compact() {
+        String filePath = tableFilePath;
+        if (filePath == null) {
+            return;
+        }
+        Path target = Paths.get(filePath);
+        List<LinkedHashMap<String, String>> snapshot;
+        TableChangeLog log;
+        long logMark;
+        long changes;
+        long snapshotNumber;
+        Path temp = null;
+        // Writers wait only while the snapshot and the log position are taken, not while the file is written
+        Lock lock = rows.structureLock();
+        lock.lock();
+        try {
+            snapshot = rows.snapshot();
+            log = changeLog;
+            logMark = log != null ? log.mark() : 0;
+            synchronized (pendingChanges) {
+                changes = pendingChanges.total();
+            }
+            synchronized (saves) {
+                snapshotNumber = ++snapshots;
+            }
+        } catch (IOException e) {
+            inputHandler.printCustomMessage("An error occurred while saving the table: " + e.getMessage());
+            return;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            temp = files.writeTempTableFile(snapshot, target);
+            synchronized (saves) {
+                // A slower save of an older snapshot must not replace a newer one
+                if (snapshotNumber > savedSnapshot) {
+                    AtomicFiles.replace(temp, target);
+                    savedSnapshot = snapshotNumber;
+                    // The log only drops the changes the table file now holds
+                    if (log != null && log == changeLog) {
+                        log.truncate(logMark);
+                    }
+                    synchronized (pendingChanges) {
+                        pendingChanges.savedUpTo(changes);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            inputHandler.printCustomMessage("An error occurred while saving the table: " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // Only a leftover temporary file
+                }
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        boolean dirty;
+        synchronized (pendingChanges) {
+            dirty = pendingChanges.isDirty();
+        }
+        if (dirty) {
+            compact();
+        }
+    }
+
+    public PendingChanges getPendingChanges() {
+        return pendingChanges;
+    }
+
+    public KeyRegistry getKeyRegistry() {
+        return keyRegistry;
+    }
+
+    @Override
+    public LinkedHashMap<String, String> generateRandomKeyValuePairs(int numColumns) {
+        return files.generateRandomKeyValuePairs(numColumns);
+    }
+}
@@ -0,0 +1,135 @@
+package org.arqaine.maven.service.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts how many cells use each key, so checking whether a key is taken costs the same on any
+ * table size.
+ *
+ * Keys of {@link #KEY_LENGTH} characters from the generator's alphabet, which is what random
+ * tables are made of, are encoded as a number below {@link #KEY_SPACE} and counted in an array.
+ * Any other key, such as one loaded from a file or typed in, is counted in a hash map.
+ */
+public class KeyRegistry {
+    public static final int KEY_LENGTH = RandomTableGenerator.DEFAULT_CELL_LENGTH;
+    private static final char[] ALPHABET = RandomTableGenerator.ALPHABET;
+    private static final int RADIX = ALPHABET.length;
+    public static final int KEY_SPACE = RADIX * RADIX * RADIX;
+    private static final int[] DIGITS = digits();
+
+    private final int[] counts = new int[KEY_SPACE];
+    private final Map<String, Integer> otherKeys = new HashMap<>();
+    private int freeCodes = KEY_SPACE;
+
+    public KeyRegistry() {
+    }
+
+    public KeyRegistry(List<? extends Map<String, String>> rows) {
+        for (Map<String, String> row : rows) {
+            addRow(row);
+        }
+    }
+
+    // The code of a key in the encoded key space, or -1 if it is not part of it
+    public static int encode(String key) {
+        if (key.length() != KEY_LENGTH) {
+            return -1;
+        }
+        int code = 0;
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            char c = key.charAt(i);
+            int digit = c < DIGITS.length ? DIGITS[c] : -1;
+            if (digit < 0) {
+                return -1;
+            }
+            code = code * RADIX + digit;
+        }
+        return code;
+    }
+
+    public static String decode(int code) {
+        char[] chars = new char[KEY_LENGTH];
+        for (int i = KEY_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[code % RADIX];
+            code /= RADIX;
+        }
+        return new String(chars);
+    }
+
+    public synchronized void add(String key) {
+        int code = encode(key);
+        if (code < 0) {
+            otherKeys.merge(key, 1, Integer::sum);
+        } else if (counts[code]++ == 0) {
+            freeCodes--;
+        }
+    }
+
+    public synchronized void remove(String key) {
+        int code = encode(key);
+        if (code < 0) {
+            otherKeys.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+        } else if (counts[code] > 0 && --counts[code] == 0) {
+            freeCodes++;
+        }
+    }
+
+    // Number of cells using the key
+    public synchronized int count(String key) {
+        int code = encode(key);
+        return code < 0 ? otherKeys.getOrDefault(key, 0) : counts[code];
+    }
+
+    public boolean contains(String key) {
+        return count(key) > 0;
+    }
+
+    public synchronized void addRow(Map<String, String> row) {
+        for (String key : row.keySet()) {
+            add(key);
+        }
+    }
+
+    public synchronized void removeRow(Map<String, String> row) {
+        for (String key : row.keySet()) {
+            remove(key);
+        }
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(counts, 0);
+        otherKeys.clear();
+        freeCodes = KEY_SPACE;
+    }
+
+    // Number of encoded keys no cell uses
+    public synchronized int freeCodes() {
+        return freeCodes;
+    }
+
+    // First unused code at or after start, wrapping around, or -1 when every code is used
+    public synchronized int nextFreeCode(int start) {
+        if (freeCodes == 0) {
+            return -1;
+        }
+        for (int i = 0; i < KEY_SPACE; i++) {
+            int code = (start + i) % KEY_SPACE;
+            if (counts[code] == 0) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] digits() {
+        int[] digits = new int[128];
+        Arrays.fill(digits, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            digits[ALPHABET[i]] = i;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,87 @@
+package org.arqaine.maven.service.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with log-linear buckets, in the manner of HdrHistogram: values
+ * below 64 get a bucket each, and every power of two above that is split into 32 buckets, so
+ * a percentile is never off by more than about 3% of its value. Recording is one array
+ * increment and never allocates.
+ */
+public class LatencyHistogram {
+    private static final int LINEAR_BUCKETS = 64;
+    private static final int SUB_BUCKETS = 32;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int BUCKETS = LINEAR_BUCKETS + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(bucket(v));
+        count.increment();
+        total.add(v);
+        max.accumulate(v);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    // The highest value of the bucket holding the given percentile, between 0 and 100
+    public long valueAtPercentile(double percentile) {
+        long n = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    static int bucket(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestValue(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long mantissa = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,25 @@
+package org.arqaine.maven.service.impl;
+
+/**
+ * How {@link TableServiceImpl#loadTableFromFile(String)} reads text table files. Binary and
+ * compressed files are always streamed, except block-compressed text in PARALLEL mode.
+ */
+public enum LoadMode {
+    // Buffered character reader, decoding the whole file
+    READER,
+    // Memory-mapped file, decoding only key and value slices
+    MAPPED,
+    // Memory-mapped chunks, or the blocks of a .bgz file, parsed across cores on a ForkJoin pool
+    PARALLEL;
+
+    public static LoadMode fromString(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return READER;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown load mode '" + name + "'.");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.arqaine.maven.service.impl;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Loads a table file through {@link FileChannel#map}, scanning the mapped bytes for line ends and
+ * decoding each line as UTF-8 into a reused char buffer for {@link TableTextParser#parseLine}.
+ *
+ * Files are mapped in windows of at most {@code chunkSize} bytes that always end on a line
+ * boundary, so files over 2 GB load window by window.
+ */
+public class MappedTableLoader {
+    private static final long DEFAULT_CHUNK_SIZE = 1L << 30;
+
+    private final long chunkSize;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private char[] chars = new char[256];
+
+    public MappedTableLoader() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public MappedTableLoader(long chunkSize) {
+        if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + Integer.MAX_VALUE);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public void load(Path path, Consumer<LinkedHashMap<String, String>> rowConsumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            load(channel, 0, channel.size(), rowConsumer);
+        }
+    }
+
+    // Loads the lines between two offsets, where from has to be the start of a line
+    public void load(FileChannel channel, long from, long to, Consumer<LinkedHashMap<String, String>> rowConsumer)
+            throws IOException {
+        long position = from;
+        long windowSize = chunkSize;
+        boolean skipLineFeed = false;
+
+        while (position < to) {
+            int limit = (int) Math.min(windowSize, to - position);
+            boolean lastWindow = position + limit == to;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, limit);
+
+            int start = skipLineFeed && buffer.get(0) == '\n' ? 1 : 0;
+            boolean pendingLineFeed = false;
+            int lineStart = start;
+            for (int i = start; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    rowConsumer.accept(parseLine(buffer, lineStart, i));
+                    if (b == '\r') {
+                        if (i + 1 < limit) {
+                            if (buffer.get(i + 1) == '\n') {
+                                i++;
+                            }
+                        } else {
+                            pendingLineFeed = true;
+                        }
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart < limit && lastWindow) {
+                rowConsumer.accept(parseLine(buffer, lineStart, limit));
+                lineStart = limit;
+            }
+
+            if (lineStart == start && start < limit) {
+                // Not a single complete line in the window: map a larger one from the same place
+                if (windowSize >= Integer.MAX_VALUE) {
+                    throw new IOException("Line at offset " + position + " is longer than " + Integer.MAX_VALUE + " bytes.");
+                }
+                windowSize = Math.min(windowSize * 2, Integer.MAX_VALUE);
+                continue;
+            }
+            position += lineStart;
+            windowSize = chunkSize;
+            skipLineFeed = pendingLineFeed;
+        }
+    }
+
+    // Decodes the line and hands it to the tokenizer of TableTextParser; '|' and ':' are ASCII,
+    // so they split the decoded chars exactly where they split the bytes
+    private LinkedHashMap<String, String> parseLine(MappedByteBuffer buffer, int from, int to) {
+        // UTF-8 never decodes to more chars than it has bytes
+        if (to - from > chars.length) {
+            chars = new char[Math.max(to - from, chars.length * 2)];
+        }
+        CharBuffer decoded = CharBuffer.wrap(chars);
+        buffer.limit(to);
+        buffer.position(from);
+        decoder.reset();
+        decoder.decode(buffer, decoded, true);
+        decoder.flush(decoded);
+        buffer.limit(buffer.capacity());
+        return TableTextParser.parseLine(chars, 0, decoded.position());
+    }
+}
@@ -0,0 +1,341 @@
+package org.arqaine.maven.service.impl;
+
+import org.arqaine.maven.model.SearchHit;
+import org.arqaine.maven.model.Table;
+import org.arqaine.maven.service.TableService;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Wraps a {@link TableService} and records, for every operation, how often it ran, how long it
+ * took, how large the table was and how many bytes it read or wrote. Printing counts characters
+ * as bytes.
+ *
+ * The figures can be registered as one MBean per operation under
+ * {@code org.arqaine.maven:type=TableService,operation=<name>} and dumped as text periodically.
+ * Saves the wrapped service starts on its own, such as write-behind flushes, are not seen here.
+ */
+public class MetricsTableService implements TableService {
+    public static final String JMX_DOMAIN = "org.arqaine.maven";
+
+    private final TableService delegate;
+    private final Map<String, OperationMetrics> operations = new LinkedHashMap<>();
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+    private ScheduledExecutorService dumpExecutor;
+    private volatile String tableFilePath;
+
+    private final OperationMetrics search = operation("search");
+    private final OperationMetrics searchHits = operation("searchHits");
+    private final OperationMetrics editCell = operation("editCell");
+    private final OperationMetrics printTable = operation("printTable");
+    private final OperationMetrics printRows = operation("printRows");
+    private final OperationMetrics reset = operation("reset");
+    private final OperationMetrics addNewRow = operation("addNewRow");
+    private final OperationMetrics sortRow = operation("sortRow");
+    private final OperationMetrics sortAllRows = operation("sortAllRows");
+    private final OperationMetrics sortRowsByKey = operation("sortRowsByKey");
+    private final OperationMetrics loadTableFromJar = operation("loadTableFromJar");
+    private final OperationMetrics loadTableFromFile = operation("loadTableFromFile");
+    private final OperationMetrics saveTableToFile = operation("saveTableToFile");
+    private final OperationMetrics initializeTable = operation("initializeTable");
+    private final OperationMetrics enableChangeLog = operation("enableChangeLog");
+    private final OperationMetrics compact = operation("compact");
+    private final OperationMetrics flush = operation("flush");
+
+    public MetricsTableService(TableService delegate) {
+        this.delegate = delegate;
+    }
+
+    private OperationMetrics operation(String name) {
+        OperationMetrics metrics = new OperationMetrics(name);
+        operations.put(name, metrics);
+        return metrics;
+    }
+
+    public Collection<OperationMetrics> getOperations() {
+        return Collections.unmodifiableCollection(operations.values());
+    }
+
+    public OperationMetrics getOperation(String name) {
+        return operations.get(name);
+    }
+
+    public TableService getDelegate() {
+        return delegate;
+    }
+
+    // Registers the MBeans, replacing those of an earlier instance
+    public synchronized void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (OperationMetrics metrics : operations.values()) {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=TableService,operation=" + metrics.getOperation());
+            try {
+                server.registerMBean(metrics, name);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(name);
+                server.registerMBean(metrics, name);
+            }
+            registeredNames.add(name);
+        }
+    }
+
+    public synchronized void unregisterMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registeredNames) {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        }
+        registeredNames.clear();
+    }
+
+    // Prints the report every periodSeconds on a daemon thread until stopDump
+    public synchronized void startDump(PrintStream out, long periodSeconds) {
+        stopDump();
+        dumpExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "table-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumpExecutor.scheduleAtFixedRate(() -> out.print(report()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopDump() {
+        if (dumpExecutor != null) {
+            dumpExecutor.shutdownNow();
+            dumpExecutor = null;
+        }
+    }
+
+    // One line per operation that ran, times in milliseconds
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-18s %8s %6s %10s %10s %10s %10s %10s %10s %12s %12s%n",
+                "Operation", "Count", "Errors", "Mean", "P50", "P90", "P99", "Max", "Rows@Max", "Bytes read", "Written"));
+        for (OperationMetrics metrics : operations.values()) {
+            if (metrics.getCount() == 0) {
+                continue;
+            }
+            report.append(String.format("%-18s %8d %6d %10.3f %10.3f %10.3f %10.3f %10.3f %10d %12d %12d%n",
+                    metrics.getOperation(), metrics.getCount(), metrics.getErrors(), metrics.getMeanMillis(),
+                    metrics.getP50Millis(), metrics.getP90Millis(), metrics.getP99Millis(), metrics.getMaxMillis(),
+                    metrics.getTableRowsAtMax(), metrics.getBytesRead(), metrics.getBytesWritten()));
+        }
+        return report.toString();
+    }
+
+    private <T> T timed(OperationMetrics metrics, Supplier<T> call) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = call.get();
+            failed = false;
+            return result;
+        } finally {
+            metrics.record(System.nanoTime() - start, delegate.getRowCount(), failed);
+        }
+    }
+
+    private void timed(OperationMetrics metrics, Runnable call) {
+        timed(metrics, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    @Override
+    public String search(String searchChoice, String target) {
+        return timed(search, () -> delegate.search(searchChoice, target));
+    }
+
+    @Override
+    public int searchHits(String searchChoice, String target, int limit, Predicate<SearchHit> handler) {
+        return timed(searchHits, () -> delegate.searchHits(searchChoice, target, limit, handler));
+    }
+
+    // The prompts wait for the user, so only applying the answers is timed
+    @Override
+    public void editCell(String keyToEdit, Runnable answersRead) {
+        long[] start = new long[1];
+        boolean[] applying = new boolean[1];
+        boolean failed = true;
+        try {
+            delegate.editCell(keyToEdit, () -> {
+                answersRead.run();
+                applying[0] = true;
+                start[0] = System.nanoTime();
+            });
+            failed = false;
+        } finally {
+            if (applying[0]) {
+                editCell.record(System.nanoTime() - start[0], delegate.getRowCount(), failed);
+            }
+        }
+    }
+
+    @Override
+    public String printTable() {
+        String printed = timed(printTable, delegate::printTable);
+        printTable.bytesWritten(printed.length());
+        return printed;
+    }
+
+    @Override
+    public int printRows(Writer out, int fromRow, int toRow) throws IOException {
+        CountingWriter counting = new CountingWriter(out);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int rows = delegate.printRows(counting, fromRow, toRow);
+            failed = false;
+            return rows;
+        } finally {
+            printRows.record(System.nanoTime() - start, delegate.getRowCount(), failed);
+            printRows.bytesWritten(counting.count);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return delegate.getRowCount();
+    }
+
+    @Override
+    public String reset(int newRows, int newCols) {
+        return timed(reset, () -> delegate.reset(newRows, newCols));
+    }
+
+    @Override
+    public String addNewRow(int rowIndex, int numColumns) {
+        return timed(addNewRow, () -> delegate.addNewRow(rowIndex, numColumns));
+    }
+
+    @Override
+    public String sortRow(int rowIndex) {
+        return timed(sortRow, () -> delegate.sortRow(rowIndex));
+    }
+
+    @Override
+    public String sortAllRows(String sortChoice) {
+        return timed(sortAllRows, () -> delegate.sortAllRows(sortChoice));
+    }
+
+    @Override
+    public String sortRowsByKey(String key) {
+        return timed(sortRowsByKey, () -> delegate.sortRowsByKey(key));
+    }
+
+    @Override
+    public List<LinkedHashMap<String, String>> loadTableFromJar(String filePath, String outputFile) {
+        return timed(loadTableFromJar, () -> delegate.loadTableFromJar(filePath, outputFile));
+    }
+
+    @Override
+    public List<LinkedHashMap<String, String>> loadTableFromFile(String filePath, Runnable loaded) {
+        return timed(loadTableFromFile, () -> delegate.loadTableFromFile(filePath, () -> {
+            loadTableFromFile.bytesRead(new File(filePath).length());
+            loaded.run();
+        }));
+    }
+
+    @Override
+    public void saveTableToFile(List<LinkedHashMap<String, String>> tableData, String filePath) {
+        timed(saveTableToFile, () -> delegate.saveTableToFile(tableData, filePath));
+        saveTableToFile.bytesWritten(new File(filePath).length());
+    }
+
+    @Override
+    public List<LinkedHashMap<String, String>> initializeTable(String[] args, Table table) {
+        return timed(initializeTable, () -> delegate.initializeTable(args, table));
+    }
+
+    @Override
+    public void enableChangeLog(String filePath) {
+        tableFilePath = filePath;
+        timed(enableChangeLog, () -> delegate.enableChangeLog(filePath));
+    }
+
+    @Override
+    public void enableWriteBehind(String filePath, long delayMillis, int maxOperations) {
+        if (tableFilePath == null) {
+            tableFilePath = filePath;
+        }
+        delegate.enableWriteBehind(filePath, delayMillis, maxOperations);
+    }
+
+    @Override
+    public void compact() {
+        timed(compact, delegate::compact);
+        tableFileWritten(compact, 0);
+    }
+
+    @Override
+    public void flush() {
+        String path = tableFilePath;
+        long modified = path == null ? 0 : new File(path).lastModified();
+        timed(flush, delegate::flush);
+        tableFileWritten(flush, modified);
+    }
+
+    // Counts the table file as written if it changed since the given modification time
+    private void tableFileWritten(OperationMetrics metrics, long modifiedBefore) {
+        String path = tableFilePath;
+        if (path != null) {
+            File file = new File(path);
+            if (file.lastModified() != modifiedBefore) {
+                metrics.bytesWritten(file.length());
+            }
+        }
+    }
+
+    @Override
+    public LinkedHashMap<String, String> generateRandomKeyValuePairs(int numColumns) {
+        return delegate.generateRandomKeyValuePairs(numColumns);
+    }
+
+    private static final class CountingWriter extends FilterWriter {
+        private long count;
+
+        private CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void write(String s, int offset, int length) throws IOException {
+            out.write(s, offset, length);
+            count += length;
+        }
+    }
+}
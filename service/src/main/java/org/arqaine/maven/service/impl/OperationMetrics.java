@@ -0,0 +1,127 @@
+package org.arqaine.maven.service.impl;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts, latencies and data sizes of one {@link org.arqaine.maven.service.TableService}
+ * operation. Recording is safe from any thread and does not lock.
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String operation;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAccumulator maxTableRows = new LongAccumulator(Math::max, 0);
+    private volatile long lastTableRows;
+
+    // The slowest call and the table size it ran on, updated together
+    private volatile long slowestNanos = -1;
+    private long tableRowsAtMax;
+
+    public OperationMetrics(String operation) {
+        this.operation = operation;
+    }
+
+    public void record(long nanos, int tableRows, boolean failed) {
+        latencies.record(nanos);
+        if (failed) {
+            errors.increment();
+        }
+        lastTableRows = tableRows;
+        maxTableRows.accumulate(tableRows);
+        if (nanos > slowestNanos) {
+            synchronized (this) {
+                if (nanos > slowestNanos) {
+                    slowestNanos = nanos;
+                    tableRowsAtMax = tableRows;
+                }
+            }
+        }
+    }
+
+    public void bytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    public void bytesWritten(long bytes) {
+        bytesWritten.add(bytes);
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+
+    @Override
+    public long getCount() {
+        return latencies.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latencies.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latencies.getMax() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latencies.valueAtPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP90Millis() {
+        return latencies.valueAtPercentile(90) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latencies.valueAtPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return latencies.valueAtPercentile(99.9) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getLastTableRows() {
+        return lastTableRows;
+    }
+
+    @Override
+    public long getMaxTableRows() {
+        return maxTableRows.get();
+    }
+
+    @Override
+    public synchronized long getTableRowsAtMax() {
+        return tableRowsAtMax;
+    }
+}
@@ -0,0 +1,36 @@
+package org.arqaine.maven.service.impl;
+
+/**
+ * What JMX shows of one table operation. Times are in milliseconds, table rows are the size of
+ * the table when the operation finished.
+ */
+public interface OperationMetricsMBean {
+    String getOperation();
+
+    long getCount();
+
+    long getErrors();
+
+    double getMeanMillis();
+
+    double getMaxMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    long getLastTableRows();
+
+    long getMaxTableRows();
+
+    // Table rows at the slowest call, to tell a slow operation from a large table
+    long getTableRowsAtMax();
+}
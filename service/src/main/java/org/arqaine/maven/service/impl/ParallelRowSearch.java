@@ -0,0 +1,155 @@
+package org.arqaine.maven.service.impl;
+
+import org.arqaine.maven.model.SearchHit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/**
+ * Finds keys or values containing a target by scanning rows. Tables with more rows than the
+ * threshold are split into ranges that are scanned on a {@link ForkJoinPool}; the hits of each
+ * range are joined in row order, so the result is the same as that of a sequential scan.
+ *
+ * Row numbers are the positions in the list the scan walks, which must support fast random access.
+ */
+public class ParallelRowSearch {
+    public static final int DEFAULT_THRESHOLD = 8192;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelRowSearch() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    public ParallelRowSearch(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be at least one row.");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    public List<SearchHit> findKeys(List<? extends Map<String, String>> rows, String target) {
+        return find(rows, target, true);
+    }
+
+    public List<SearchHit> findValues(List<? extends Map<String, String>> rows, String target) {
+        return find(rows, target, false);
+    }
+
+    private List<SearchHit> find(List<? extends Map<String, String>> rows, String target, boolean keys) {
+        int size = rows.size();
+        if (size <= threshold) {
+            List<SearchHit> hits = new ArrayList<>();
+            scan(rows, 0, size, target, keys, hits);
+            return hits;
+        }
+        return pool.invoke(new ScanTask(rows, 0, size, target, keys));
+    }
+
+    /**
+     * Scans the rows in order on the calling thread, handing every hit to the handler as soon as
+     * it is found. Stops after limit hits (0 for no limit) or when the handler returns false, and
+     * returns the number of hits handed over.
+     */
+    public static int stream(List<? extends Map<String, String>> rows, String target, boolean keys, int limit,
+                             Predicate<SearchHit> handler) {
+        int[] count = new int[1];
+        scan(rows, 0, rows.size(), target, keys, hit -> {
+            count[0]++;
+            return handler.test(hit) && (limit <= 0 || count[0] < limit);
+        });
+        return count[0];
+    }
+
+    /**
+     * Like {@link #stream}, but scans windows of rows on the pool ahead of the handler, so a search
+     * that stops early scans at most one window past its last hit.
+     */
+    public int streamParallel(List<? extends Map<String, String>> rows, String target, boolean keys, int limit,
+                              Predicate<SearchHit> handler) {
+        int size = rows.size();
+        int window = threshold * Math.max(1, pool.getParallelism());
+        int count = 0;
+        for (int from = 0; from < size; from += window) {
+            int to = (int) Math.min(size, (long) from + window);
+            List<SearchHit> hits;
+            if (to - from <= threshold) {
+                hits = new ArrayList<>();
+                scan(rows, from, to, target, keys, hits);
+            } else {
+                hits = pool.invoke(new ScanTask(rows, from, to, target, keys));
+            }
+            for (SearchHit hit : hits) {
+                count++;
+                if (!handler.test(hit) || (limit > 0 && count >= limit)) {
+                    return count;
+                }
+            }
+        }
+        return count;
+    }
+
+    static void scan(List<? extends Map<String, String>> rows, int from, int to, String target, boolean keys,
+                     List<SearchHit> hits) {
+        scan(rows, from, to, target, keys, hits::add);
+    }
+
+    // Returns false if the handler asked to stop
+    private static boolean scan(List<? extends Map<String, String>> rows, int from, int to, String target, boolean keys,
+                                Predicate<SearchHit> handler) {
+        int i = from;
+        for (Map<String, String> row : rows.subList(from, to)) {
+            for (Map.Entry<String, String> entry : row.entrySet()) {
+                if ((keys ? entry.getKey() : entry.getValue()).contains(target)
+                        && !handler.test(new SearchHit(i, entry.getKey(), entry.getValue()))) {
+                    return false;
+                }
+            }
+            i++;
+        }
+        return true;
+    }
+
+    private final class ScanTask extends RecursiveTask<List<SearchHit>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends Map<String, String>> rows;
+        private final int from;
+        private final int to;
+        private final String target;
+        private final boolean keys;
+
+        private ScanTask(List<? extends Map<String, String>> rows, int from, int to, String target, boolean keys) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.target = target;
+            this.keys = keys;
+        }
+
+        @Override
+        protected List<SearchHit> compute() {
+            if (to - from <= threshold) {
+                List<SearchHit> hits = new ArrayList<>();
+                scan(rows, from, to, target, keys, hits);
+                return hits;
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(rows, from, middle, target, keys);
+            left.fork();
+            List<SearchHit> rightHits = new ScanTask(rows, middle, to, target, keys).compute();
+            List<SearchHit> hits = left.join();
+            if (hits.isEmpty()) {
+                return rightHits;
+            }
+            hits.addAll(rightHits);
+            return hits;
+        }
+    }
+}
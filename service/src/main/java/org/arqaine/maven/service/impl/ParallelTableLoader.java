@@ -0,0 +1,104 @@
+package org.arqaine.maven.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Loads a table file on a {@link ForkJoinPool}: the file is cut into chunks that each end right
+ * after a line feed, every chunk is mapped and parsed by its own {@link MappedTableLoader}, and
+ * the rows are handed to the consumer in file order once all chunks are parsed.
+ */
+public class ParallelTableLoader {
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = 1L << 30;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final long minChunkSize;
+
+    public ParallelTableLoader() {
+        this(ForkJoinPool.commonPool(), MIN_CHUNK_SIZE);
+    }
+
+    public ParallelTableLoader(ForkJoinPool pool, long minChunkSize) {
+        this.pool = pool;
+        this.minChunkSize = minChunkSize;
+    }
+
+    public void load(Path path, Consumer<LinkedHashMap<String, String>> rowConsumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<Long> boundaries = chunkBoundaries(channel);
+
+            List<ForkJoinTask<List<LinkedHashMap<String, String>>>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < boundaries.size(); i++) {
+                long from = boundaries.get(i);
+                long to = boundaries.get(i + 1);
+                tasks.add(pool.submit(() -> loadChunk(channel, from, to)));
+            }
+
+            // Stitch the chunks back together in their original order
+            for (ForkJoinTask<List<LinkedHashMap<String, String>>> task : tasks) {
+                try {
+                    task.join().forEach(rowConsumer);
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+
+    private static List<LinkedHashMap<String, String>> loadChunk(FileChannel channel, long from, long to) {
+        List<LinkedHashMap<String, String>> rows = new ArrayList<>();
+        try {
+            new MappedTableLoader().load(channel, from, to, rows::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    private List<Long> chunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long target = size / ((long) pool.getParallelism() * CHUNKS_PER_THREAD);
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(minChunkSize, target));
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long position = 0;
+        while (position < size) {
+            long next = position + chunkSize >= size ? size : nextLineStart(channel, position + chunkSize, size);
+            boundaries.add(next);
+            position = next;
+        }
+        return boundaries;
+    }
+
+    // Offset just past the first line feed at or after position, or the file size
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
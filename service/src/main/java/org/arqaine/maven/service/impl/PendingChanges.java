@@ -0,0 +1,42 @@
+package org.arqaine.maven.service.impl;
+
+/**
+ * Counts the changes made since the table was last written. A save always rewrites the whole
+ * file and the change log already holds the changed rows themselves, so which rows changed is
+ * not tracked here, only whether and how often the table did.
+ *
+ * A save written from a snapshot marks only the changes up to that snapshot as saved, so
+ * changes made while the file was being written stay pending.
+ */
+public class PendingChanges {
+    private volatile long changes;
+    private volatile long saved;
+
+    public void changed() {
+        changes++;
+    }
+
+    public void clear() {
+        saved = changes;
+    }
+
+    // The number of changes made so far, to pass to savedUpTo once a snapshot taken now is written
+    public long total() {
+        return changes;
+    }
+
+    public void savedUpTo(long total) {
+        if (total > saved) {
+            saved = total;
+        }
+    }
+
+    public boolean isDirty() {
+        return changes > saved;
+    }
+
+    // Number of changes since the last write
+    public long count() {
+        return changes - saved;
+    }
+}
@@ -0,0 +1,219 @@
+package org.arqaine.maven.service.impl;
+
+import org.arqaine.maven.model.CompactRow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates rows of random keys and values from the printable ASCII characters that the table
+ * file format allows, that is without space, colon and pipe.
+ *
+ * Characters are drawn from a precomputed alphabet with a {@link SplittableRandom}. Large tables
+ * are filled in row ranges on a {@link ForkJoinPool}, every range with its own generator split
+ * off in a fixed order, so a seeded generator produces the same table however the work is spread.
+ *
+ * Every row gets exactly the number of columns asked for. Keys are also unique across a
+ * generated table while it fits in the {@link KeyRegistry#KEY_SPACE} of three-character keys,
+ * and new rows avoid the keys of a registry as long as it has free keys left.
+ */
+public class RandomTableGenerator {
+    public static final int DEFAULT_CELL_LENGTH = 3;
+    private static final int ROWS_PER_TASK = 4096;
+    private static final int MAX_KEY_ATTEMPTS = 16;
+    static final char[] ALPHABET = alphabet();
+
+    private final SplittableRandom random;
+    private final int cellLength;
+    private final ForkJoinPool pool;
+
+    public RandomTableGenerator() {
+        this(new SplittableRandom(), DEFAULT_CELL_LENGTH, ForkJoinPool.commonPool());
+    }
+
+    public RandomTableGenerator(long seed) {
+        this(new SplittableRandom(seed), DEFAULT_CELL_LENGTH, ForkJoinPool.commonPool());
+    }
+
+    public RandomTableGenerator(SplittableRandom random, int cellLength, ForkJoinPool pool) {
+        if (cellLength < 1) {
+            throw new IllegalArgumentException("Keys and values need at least one character.");
+        }
+        this.random = random;
+        this.cellLength = cellLength;
+        this.pool = pool;
+    }
+
+    // Seeded from a string such as an environment variable, unseeded when it is empty
+    public static RandomTableGenerator fromSeed(String seed) {
+        if (seed == null || seed.trim().isEmpty()) {
+            return new RandomTableGenerator();
+        }
+        try {
+            return new RandomTableGenerator(Long.parseLong(seed.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Random seed '" + seed + "' is not a number.");
+        }
+    }
+
+    public LinkedHashMap<String, String> row(int numColumns) {
+        return row(numColumns, null);
+    }
+
+    // A row whose keys are not in the registry, unless it has run out of free keys
+    public synchronized LinkedHashMap<String, String> row(int numColumns, KeyRegistry taken) {
+        checkColumns(numColumns);
+        return row(numColumns, random, new char[cellLength], taken);
+    }
+
+    public List<LinkedHashMap<String, String>> rows(int numRows, int numColumns) {
+        if (numRows <= 0) {
+            return new ArrayList<>();
+        }
+        checkColumns(numColumns);
+        SplittableRandom source;
+        int[] keyCodes = null;
+        synchronized (this) {
+            source = random.split();
+            if (cellLength == KeyRegistry.KEY_LENGTH && (long) numRows * numColumns <= KeyRegistry.KEY_SPACE) {
+                keyCodes = distinctCodes(numRows * numColumns, source);
+            }
+        }
+        // Tasks only set their own slots, which an ArrayList allows from several threads
+        List<LinkedHashMap<String, String>> rows = new ArrayList<>(Collections.nCopies(numRows, null));
+        if (numRows <= ROWS_PER_TASK) {
+            new FillTask(rows, 0, numRows, numColumns, keyCodes, source).compute();
+        } else {
+            pool.invoke(new FillTask(rows, 0, numRows, numColumns, keyCodes, source));
+        }
+        return rows;
+    }
+
+    private LinkedHashMap<String, String> row(int numColumns, SplittableRandom random, char[] buffer, KeyRegistry taken) {
+        LinkedHashMap<String, String> row = new LinkedHashMap<>(Math.max(16, numColumns * 4 / 3 + 1));
+        while (row.size() < numColumns) {
+            row.put(key(random, buffer, row, taken), cell(random, buffer));
+        }
+        return row;
+    }
+
+    private String key(SplittableRandom random, char[] buffer, LinkedHashMap<String, String> row, KeyRegistry taken) {
+        for (int attempt = 0; attempt < MAX_KEY_ATTEMPTS; attempt++) {
+            String key = cell(random, buffer);
+            if (!row.containsKey(key) && (taken == null || !taken.contains(key))) {
+                return key;
+            }
+        }
+        if (taken != null && cellLength == KeyRegistry.KEY_LENGTH) {
+            // Most keys are taken: walk to the next free one instead of guessing
+            int code = random.nextInt(KeyRegistry.KEY_SPACE);
+            for (int i = 0; i <= row.size(); i++) {
+                code = taken.nextFreeCode(code);
+                if (code < 0) {
+                    break;
+                }
+                String key = KeyRegistry.decode(code);
+                if (!row.containsKey(key)) {
+                    return key;
+                }
+                code = (code + 1) % KeyRegistry.KEY_SPACE;
+            }
+        }
+        // No free key is left, so keys only have to differ within the row
+        while (true) {
+            String key = cell(random, buffer);
+            if (!row.containsKey(key)) {
+                return key;
+            }
+        }
+    }
+
+    private void checkColumns(int numColumns) {
+        double keys = Math.pow(ALPHABET.length, cellLength);
+        if (numColumns > keys) {
+            throw new IllegalArgumentException("A row can have at most " + (long) keys + " columns.");
+        }
+    }
+
+    // The first count codes of a random permutation of the key space
+    private static int[] distinctCodes(int count, SplittableRandom random) {
+        int[] codes = new int[KeyRegistry.KEY_SPACE];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = i;
+        }
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(codes.length - i);
+            int code = codes[j];
+            codes[j] = codes[i];
+            codes[i] = code;
+        }
+        return codes;
+    }
+
+    private static String cell(SplittableRandom random, char[] buffer) {
+        for (int i = 0; i < buffer.length; i++) {
+            buffer[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(buffer);
+    }
+
+    private static char[] alphabet() {
+        StringBuilder chars = new StringBuilder();
+        for (char c = ' '; c <= '~'; c++) {
+            if (" :|".indexOf(c) < 0) {
+                chars.append(c);
+            }
+        }
+        return chars.toString().toCharArray();
+    }
+
+    private final class FillTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<LinkedHashMap<String, String>> rows;
+        private final int from;
+        private final int to;
+        private final int numColumns;
+        private final int[] keyCodes;
+        private final SplittableRandom random;
+
+        private FillTask(List<LinkedHashMap<String, String>> rows, int from, int to, int numColumns, int[] keyCodes,
+                         SplittableRandom random) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.numColumns = numColumns;
+            this.keyCodes = keyCodes;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                char[] buffer = new char[cellLength];
+                CompactRow.Builder builder = new CompactRow.Builder();
+                for (int i = from; i < to; i++) {
+                    rows.set(i, keyCodes == null ? row(numColumns, random, buffer, null) : distinctKeyRow(i, buffer, builder));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            // Splitting before forking keeps the sequence of every range independent of scheduling
+            invokeAll(new FillTask(rows, from, middle, numColumns, keyCodes, random.split()),
+                    new FillTask(rows, middle, to, numColumns, keyCodes, random));
+        }
+
+        private LinkedHashMap<String, String> distinctKeyRow(int rowIndex, char[] buffer, CompactRow.Builder row) {
+            int first = rowIndex * numColumns;
+            for (int c = 0; c < numColumns; c++) {
+                row.put(KeyRegistry.decode(keyCodes[first + c]), cell(random, buffer));
+            }
+            return row.build();
+        }
+    }
+}
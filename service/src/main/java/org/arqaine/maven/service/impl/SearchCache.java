@@ -0,0 +1,193 @@
+package org.arqaine.maven.service.impl;
+
+import org.arqaine.maven.model.SearchHit;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Least recently used search results, keyed by key or value search and target.
+ *
+ * Changes drop only the results they can affect. An edited cell drops the searches whose target
+ * it contains before or after the edit. A sorted row drops the results with hits in that row.
+ * An inserted row drops the results with hits at or after it, whose row numbers shift, and the
+ * searches it matches. Anything larger, such as a reset, clears the cache.
+ */
+public class SearchCache implements SearchCacheMBean {
+    public static final int DEFAULT_CAPACITY = 256;
+    // Larger results are not kept, so the cache holds at most capacity times this many hits
+    public static final int MAX_CACHED_HITS = 10000;
+
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public SearchCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Search cache capacity must not be negative.");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > SearchCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // The capacity from a string such as an environment variable, the default when it is empty
+    public static SearchCache fromCapacity(String capacity) {
+        if (capacity == null || capacity.trim().isEmpty()) {
+            return new SearchCache(DEFAULT_CAPACITY);
+        }
+        try {
+            return new SearchCache(Integer.parseInt(capacity.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Search cache size '" + capacity + "' is not a number.");
+        }
+    }
+
+    public synchronized List<SearchHit> get(boolean keys, String target) {
+        Entry entry = entries.get(cacheKey(keys, target));
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.hits;
+    }
+
+    public synchronized void put(boolean keys, String target, List<SearchHit> found) {
+        if (capacity > 0 && found.size() <= MAX_CACHED_HITS) {
+            entries.put(cacheKey(keys, target), new Entry(keys, target, found));
+        }
+    }
+
+    public synchronized void valueChanged(String key, String oldValue, String newValue) {
+        invalidate(entry -> entry.keys
+                ? key.contains(entry.target)
+                : (oldValue != null && oldValue.contains(entry.target)) || newValue.contains(entry.target));
+    }
+
+    public synchronized void keyRenamed(String oldKey, String newKey, String value) {
+        invalidate(entry -> entry.keys
+                ? oldKey.contains(entry.target) || newKey.contains(entry.target)
+                : value.contains(entry.target));
+    }
+
+    public synchronized void rowChanged(int rowIndex) {
+        invalidate(entry -> entry.hasHitInRow(rowIndex));
+    }
+
+    public synchronized void rowInserted(int rowIndex, Map<String, String> row) {
+        invalidate(entry -> entry.lastRow() >= rowIndex || entry.matches(row));
+    }
+
+    public synchronized void clear() {
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    private void invalidate(Predicate<Entry> affected) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (affected.test(iterator.next())) {
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    private static String cacheKey(boolean keys, String target) {
+        return (keys ? 'K' : 'V') + target;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    @Override
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    @Override
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    private static final class Entry {
+        private final boolean keys;
+        private final String target;
+        private final List<SearchHit> hits;
+
+        private Entry(boolean keys, String target, List<SearchHit> hits) {
+            this.keys = keys;
+            this.target = target;
+            this.hits = Collections.unmodifiableList(hits);
+        }
+
+        private int lastRow() {
+            return hits.isEmpty() ? -1 : hits.get(hits.size() - 1).getRowIndex();
+        }
+
+        // Hits are in row order
+        private boolean hasHitInRow(int rowIndex) {
+            int low = 0;
+            int high = hits.size() - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int row = hits.get(middle).getRowIndex();
+                if (row < rowIndex) {
+                    low = middle + 1;
+                } else if (row > rowIndex) {
+                    high = middle - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matches(Map<String, String> row) {
+            for (Map.Entry<String, String> cell : row.entrySet()) {
+                if ((keys ? cell.getKey() : cell.getValue()).contains(target)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.arqaine.maven.service.impl;
+
+/**
+ * What JMX shows of a {@link SearchCache}.
+ */
+public interface SearchCacheMBean {
+    int getCapacity();
+
+    int getSize();
+
+    long getHits();
+
+    long getMisses();
+
+    double getHitRate();
+
+    long getEvictions();
+
+    long getInvalidations();
+}
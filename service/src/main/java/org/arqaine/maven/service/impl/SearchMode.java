@@ -0,0 +1,24 @@
+package org.arqaine.maven.service.impl;
+
+/**
+ * How {@link TableServiceImpl#search(String, String)} finds matching cells.
+ */
+public enum SearchMode {
+    // Substring index built on the first search and kept up to date by every change
+    INDEX,
+    // Scan of every row on the calling thread
+    SCAN,
+    // Scan split into row ranges on a ForkJoin pool, sequential below a size threshold
+    PARALLEL;
+
+    public static SearchMode fromString(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return INDEX;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown search mode '" + name + "'.");
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package org.arqaine.maven.service.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only log of the changes made to a table since its file was last written.
+ *
+ * The log lives next to the table file as {@code <table file>.log}. Its first line records the
+ * size and modification time of the table file it applies to, so a log left behind by a crash
+ * between writing the table and truncating the log is recognised as stale and skipped.
+ * Records are tab-separated with backslash escapes:
+ * <pre>
+ * ADD  row key value key value ...   row inserted at that index
+ * SET  row key value key value ...   row replaced by new content
+ * PUT  row key value                 value of a key changed
+ * </pre>
+ *
+ * Each record is handed to the operating system as soon as it is written, so it survives the
+ * process crashing, but it is not forced to disk: the log is a best-effort record of the edits
+ * since the last save, not a write-ahead log, and a power failure may lose its last records.
+ */
+public class TableChangeLog implements Closeable {
+    private static final String BASE = "BASE";
+    private static final String ADD = "ADD";
+    private static final String SET = "SET";
+    private static final String PUT = "PUT";
+
+    private final Path tablePath;
+    private final Path logPath;
+    private Writer writer;
+    private int records;
+
+    public TableChangeLog(Path tablePath) {
+        this.tablePath = tablePath;
+        this.logPath = Paths.get(tablePath.toString() + ".log");
+    }
+
+    public Path getLogPath() {
+        return logPath;
+    }
+
+    // Number of records written since the table file was last written
+    public synchronized int size() {
+        return records;
+    }
+
+    /**
+     * Applies the records of an existing log to rows loaded from the table file.
+     * Returns the number of records applied; a log that belongs to another version of the
+     * table file is ignored.
+     *
+     * Every record is checked before any row is changed. A last record that is cut short or
+     * malformed was torn by a crash while it was appended, and is dropped from the log; any
+     * other bad record fails the replay with an IOException and leaves the rows alone.
+     */
+    public synchronized int replay(List<LinkedHashMap<String, String>> rows) throws IOException {
+        if (!Files.exists(logPath) || !Files.exists(tablePath)) {
+            return 0;
+        }
+        byte[] log = Files.readAllBytes(logPath);
+        int headerEnd = lineEnd(log, 0);
+        if (headerEnd == log.length || !line(log, 0, headerEnd).equals(baseHeader())) {
+            return 0;
+        }
+
+        List<List<String>> changes = new ArrayList<>();
+        int rowCount = rows.size();
+        int kept = headerEnd + 1;
+        for (int start = kept, lineNumber = 2; start < log.length; start = kept, lineNumber++) {
+            int end = lineEnd(log, start);
+            String line = line(log, start, end);
+            if (line.isEmpty() && end < log.length) {
+                kept = end + 1;
+                continue;
+            }
+            // A record only counts once its newline is written
+            List<String> fields = decode(line);
+            int newRowCount = end < log.length ? rowCountAfter(fields, rowCount) : -1;
+            if (newRowCount < 0) {
+                if (end >= log.length - 1) {
+                    break;
+                }
+                throw new IOException("Corrupt record on line " + lineNumber + " of the change log " + logPath + ".");
+            }
+            changes.add(fields);
+            rowCount = newRowCount;
+            kept = end + 1;
+        }
+
+        for (List<String> change : changes) {
+            apply(change, rows);
+        }
+        if (kept < log.length) {
+            // Later records must not be appended to the torn one
+            try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+                channel.truncate(kept);
+            }
+        }
+        records = changes.size();
+        return records;
+    }
+
+    // The number of rows after the record, or -1 if it is malformed or names a row that is not there
+    private static int rowCountAfter(List<String> fields, int rowCount) {
+        if (fields.size() < 2 || fields.size() % 2 != 0) {
+            return -1;
+        }
+        int rowIndex;
+        try {
+            rowIndex = Integer.parseInt(fields.get(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        switch (fields.get(0)) {
+            case ADD:
+                return rowIndex >= 0 && rowIndex <= rowCount ? rowCount + 1 : -1;
+            case SET:
+                return rowIndex >= 0 && rowIndex < rowCount ? rowCount : -1;
+            case PUT:
+                return fields.size() == 4 && rowIndex >= 0 && rowIndex < rowCount ? rowCount : -1;
+            default:
+                return -1;
+        }
+    }
+
+    private static void apply(List<String> fields, List<LinkedHashMap<String, String>> rows) {
+        String type = fields.get(0);
+        int rowIndex = Integer.parseInt(fields.get(1));
+        if (PUT.equals(type)) {
+            rows.get(rowIndex).put(fields.get(2), fields.get(3));
+            return;
+        }
+        LinkedHashMap<String, String> row = new LinkedHashMap<>();
+        for (int i = 2; i + 1 < fields.size(); i += 2) {
+            row.put(fields.get(i), fields.get(i + 1));
+        }
+        if (ADD.equals(type)) {
+            rows.add(rowIndex, row);
+        } else {
+            rows.set(rowIndex, row);
+        }
+    }
+
+    // The index of the newline ending the line that starts at start, or the length of the log
+    private static int lineEnd(byte[] log, int start) {
+        int end = start;
+        while (end < log.length && log[end] != '\n') {
+            end++;
+        }
+        return end;
+    }
+
+    private static String line(byte[] log, int start, int end) {
+        return new String(log, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    public synchronized void rowInserted(int rowIndex, Map<String, String> row) throws IOException {
+        append(rowRecord(ADD, rowIndex, row));
+    }
+
+    public synchronized void rowReplaced(int rowIndex, Map<String, String> row) throws IOException {
+        append(rowRecord(SET, rowIndex, row));
+    }
+
+    public synchronized void valueChanged(int rowIndex, String key, String value) throws IOException {
+        StringBuilder record = new StringBuilder(PUT).append('\t').append(rowIndex);
+        appendField(record, key);
+        appendField(record, value);
+        append(record);
+    }
+
+    /**
+     * Starts an empty log for the table file as it is now. Called after the table file has been
+     * rewritten with every logged change.
+     */
+    public synchronized void truncate() throws IOException {
+        close();
+        writer = Files.newBufferedWriter(logPath, StandardCharsets.UTF_8);
+        writer.write(baseHeader());
+        writer.write('\n');
+        writer.flush();
+        records = 0;
+    }
+
+    // The end of the records written so far, for truncate(long) once a snapshot taken now is saved
+    public synchronized long mark() throws IOException {
+        return Files.exists(logPath) ? Files.size(logPath) : 0;
+    }
+
+    /**
+     * Starts a log for the table file as it is now that keeps the records written after the mark.
+     * Called after the table file has been rewritten from a snapshot taken at the mark.
+     */
+    public synchronized void truncate(long mark) throws IOException {
+        if (!Files.exists(logPath)) {
+            truncate();
+            return;
+        }
+        close();
+        byte[] log = Files.readAllBytes(logPath);
+        int from = (int) Math.min(log.length, Math.max(mark, lineEnd(log, 0) + 1));
+        byte[] header = (baseHeader() + '\n').getBytes(StandardCharsets.UTF_8);
+
+        Path temp = AtomicFiles.tempFileFor(logPath);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer[] buffers = {ByteBuffer.wrap(header), ByteBuffer.wrap(log, from, log.length - from)};
+                while (buffers[0].hasRemaining() || buffers[1].hasRemaining()) {
+                    channel.write(buffers);
+                }
+            }
+            AtomicFiles.replace(temp, logPath);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        int kept = 0;
+        for (int i = from; i < log.length; i++) {
+            if (log[i] == '\n') {
+                kept++;
+            }
+        }
+        records = kept;
+    }
+
+    private void append(CharSequence record) throws IOException {
+        if (writer == null) {
+            if (Files.exists(logPath)) {
+                writer = Files.newBufferedWriter(logPath, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            } else {
+                truncate();
+            }
+        }
+        writer.append(record).append('\n');
+        writer.flush();
+        records++;
+    }
+
+    private String baseHeader() throws IOException {
+        return BASE + '\t' + Files.size(tablePath) + '\t' + Files.getLastModifiedTime(tablePath).toMillis();
+    }
+
+    private static StringBuilder rowRecord(String type, int rowIndex, Map<String, String> row) {
+        StringBuilder record = new StringBuilder(type).append('\t').append(rowIndex);
+        for (Map.Entry<String, String> entry : row.entrySet()) {
+            appendField(record, entry.getKey());
+            appendField(record, entry.getValue());
+        }
+        return record;
+    }
+
+    private static void appendField(StringBuilder record, String field) {
+        record.append('\t');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\':
+                    record.append("\\\\");
+                    break;
+                case '\t':
+                    record.append("\\t");
+                    break;
+                case '\n':
+                    record.append("\\n");
+                    break;
+                case '\r':
+                    record.append("\\r");
+                    break;
+                default:
+                    record.append(c);
+            }
+        }
+    }
+
+    private static List<String> decode(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\t') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\\' && i + 1 < line.length()) {
+                char escaped = line.charAt(++i);
+                field.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
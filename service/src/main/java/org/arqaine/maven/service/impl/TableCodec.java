@@ -0,0 +1,89 @@
+package org.arqaine.maven.service.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression of table files, picked by the last extension of the file name. Compressed files
+ * are streamed through the JDK codecs; the extension in front of it (.txt, .tbin) still picks
+ * the table format.
+ */
+public enum TableCodec {
+    NONE(""),
+    // Standard gzip
+    GZIP(".gz"),
+    // zlib-wrapped deflate
+    DEFLATE(".deflate"),
+    // Gzip members of whole lines that carry their own size, see BlockGzipOutputStream
+    BLOCK_GZIP(".bgz");
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final String extension;
+
+    TableCodec(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static TableCodec fromFileName(String fileName) {
+        String lowerCase = fileName.toLowerCase();
+        for (TableCodec codec : values()) {
+            if (codec != NONE && lowerCase.endsWith(codec.extension)) {
+                return codec;
+            }
+        }
+        return NONE;
+    }
+
+    public static String stripExtension(String fileName) {
+        TableCodec codec = fromFileName(fileName);
+        return fileName.substring(0, fileName.length() - codec.extension.length());
+    }
+
+    public InputStream wrap(InputStream in) throws IOException {
+        switch (this) {
+            case GZIP:
+            case BLOCK_GZIP:
+                // Block gzip files are concatenated gzip members, which GZIPInputStream reads in sequence
+                return new GZIPInputStream(in, STREAM_BUFFER_SIZE);
+            case DEFLATE:
+                return new InflaterInputStream(new BufferedInputStream(in, STREAM_BUFFER_SIZE));
+            default:
+                return new BufferedInputStream(in, STREAM_BUFFER_SIZE);
+        }
+    }
+
+    public OutputStream wrap(OutputStream out) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(out, STREAM_BUFFER_SIZE);
+            case DEFLATE:
+                return new DeflaterOutputStream(new BufferedOutputStream(out, STREAM_BUFFER_SIZE));
+            case BLOCK_GZIP:
+                return new BlockGzipOutputStream(new BufferedOutputStream(out, STREAM_BUFFER_SIZE));
+            default:
+                return new BufferedOutputStream(out, STREAM_BUFFER_SIZE);
+        }
+    }
+
+    // Writes out everything buffered or pending in the compressor without closing the stream
+    public static void finish(OutputStream out) throws IOException {
+        if (out instanceof DeflaterOutputStream) {
+            ((DeflaterOutputStream) out).finish();
+        } else if (out instanceof BlockGzipOutputStream) {
+            ((BlockGzipOutputStream) out).finish();
+        }
+        out.flush();
+    }
+}
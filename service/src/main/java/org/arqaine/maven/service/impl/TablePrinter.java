@@ -0,0 +1,38 @@
+package org.arqaine.maven.service.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes rows in the format of {@code printTable} straight to a {@link Writer}, so printing a
+ * range of a large table never holds more than the writer's buffer.
+ */
+public final class TablePrinter {
+
+    private TablePrinter() {
+    }
+
+    // Rows from fromRow up to, not including, toRow, cut off at the end of the table
+    public static int writeRows(List<? extends Map<String, String>> rows, int fromRow, int toRow, Writer out)
+            throws IOException {
+        if (fromRow < 0 || toRow < fromRow) {
+            throw new IllegalArgumentException("Invalid row range " + fromRow + " to " + toRow + ".");
+        }
+        int end = Math.min(toRow, rows.size());
+        if (fromRow >= end) {
+            return 0;
+        }
+        for (Map<String, String> row : rows.subList(fromRow, end)) {
+            for (Map.Entry<String, String> entry : row.entrySet()) {
+                out.write(entry.getKey());
+                out.write(':');
+                out.write(entry.getValue());
+                out.write(" | ");
+            }
+            out.write('\n');
+        }
+        return end - fromRow;
+    }
+}
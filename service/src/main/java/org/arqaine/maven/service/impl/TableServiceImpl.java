@@ -1,21 +1,30 @@
 package org.arqaine.maven.service.impl;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.RandomStringUtils;
-import org.apache.commons.lang3.StringUtils;
+import org.arqaine.maven.model.CompactRow;
+import org.arqaine.maven.model.KeyIndex;
+import org.arqaine.maven.model.SearchHit;
 import org.arqaine.maven.model.Table;
+import org.arqaine.maven.model.TableIndex;
 import org.arqaine.maven.service.TableService;
 import org.arqaine.maven.util.InputHandler;
 
 
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.function.Predicate;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.io.BufferedReader;
@@ -27,36 +36,131 @@ import java.io.InputStreamReader;
 import java.io.FileInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.FileWriter;
-import java.io.FileReader;
+import java.io.Writer;
 
 public class TableServiceImpl implements TableService {
-    private static final int CHAR_LENGTH = 3;
     private final Table table;
     // Specify the output path using an environment variable
     private String outputDirectory = System.getenv("OUTPUT_DIRECTORY");
-    private Path outputPath = Paths.get(outputDirectory);
+    private Path outputPath = outputDirectory != null ? Paths.get(outputDirectory) : null;
     private Path outputFilePath;
+    // Specify how table files are read using an environment variable (READER, MAPPED or PARALLEL)
+    private LoadMode loadMode = LoadMode.fromString(System.getenv("TABLE_LOAD_MODE"));
+    // Specify how cells are searched using an environment variable (INDEX, SCAN or PARALLEL)
+    private SearchMode searchMode = SearchMode.fromString(System.getenv("TABLE_SEARCH_MODE"));
+    private ParallelRowSearch rowSearch = new ParallelRowSearch();
+    // Specify a seed for reproducible random tables using an environment variable
+    private RandomTableGenerator randomGenerator = RandomTableGenerator.fromSeed(System.getenv("TABLE_RANDOM_SEED"));
+
+    // Results of repeated searches, dropped by the changes that affect them
+    private SearchCache searchCache = SearchCache.fromCapacity(System.getenv("TABLE_SEARCH_CACHE_SIZE"));
+    private List<LinkedHashMap<String, String>> searchCacheRows;
 
     private final Scanner scanner;
     private final InputHandler inputHandler;
 
+    // Built on the first search and kept up to date by every mutation afterwards
+    private TableIndex searchIndex;
+    // Built on the first key check and kept up to date the same way
+    private KeyRegistry keyRegistry;
+    private List<LinkedHashMap<String, String>> keyRegistryRows;
+    // Rows holding each key, built on the first edit
+    private KeyIndex keyIndex;
+
+    // Changes are appended here and folded into the table file every COMPACT_THRESHOLD records
+    private static final int COMPACT_THRESHOLD = 1000;
+    private TableChangeLog changeLog;
+    private String tableFilePath;
+
+    // Table files ending in .tbin are read and written in the binary format
+    private final TableTextWriter tableWriter = new TableTextWriter();
+    private final BinaryTableFormat binaryFormat = new BinaryTableFormat();
+
+    // Changes since the table file was last written, saved in the background when enabled
+    private final PendingChanges pendingChanges = new PendingChanges();
+    private WriteBehindFlusher writeBehind;
+    // Snapshots taken and written by compact(), so an older one never replaces a newer one
+    private long snapshots;
+    private long savedSnapshot;
+
     public TableServiceImpl(Table table, Scanner scanner, InputHandler inputHandler) {
         this.table = table;
         this.scanner = scanner;
         this.inputHandler = inputHandler;
     }
 
+    public LoadMode getLoadMode() {
+        return loadMode;
+    }
+
+    public void setLoadMode(LoadMode loadMode) {
+        this.loadMode = loadMode;
+    }
+
+    public RandomTableGenerator getRandomGenerator() {
+        return randomGenerator;
+    }
+
+    public void setRandomGenerator(RandomTableGenerator randomGenerator) {
+        this.randomGenerator = randomGenerator;
+    }
+
+    public SearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    public void setSearchCache(SearchCache searchCache) {
+        this.searchCache = searchCache;
+        searchCacheRows = null;
+    }
+
+    public void setRowSearch(ParallelRowSearch rowSearch) {
+        this.rowSearch = rowSearch;
+    }
+
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    public void setSearchMode(SearchMode searchMode) {
+        this.searchMode = searchMode;
+    }
+
 
 
     // Override methods from the interface
     @Override
-    public void reset(int newRows, int newCols) {
+    public synchronized String reset(int newRows, int newCols) {
         // Generate a new random table with key-value pairs
+        List<LinkedHashMap<String, String>> newTable;
+        try {
+            newTable = randomGenerator.rows(newRows, newCols);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage() + " Table not reset.";
+        }
         table.getTableData().clear(); // Clear the existing data
-        for (int i = 0; i < newRows; i++) {
-            LinkedHashMap<String, String> newRow = generateRandomKeyValuePairs(newCols);
-            table.getTableData().add(newRow);
+        table.getTableData().addAll(newTable);
+        keyRegistry = null;
+        keyIndex = null;
+        if (searchIndex != null) {
+            searchIndex.clear();
+            for (int i = 0; i < newTable.size(); i++) {
+                indexRowAdded(i, newTable.get(i));
+            }
+        }
+
+        tableRewritten();
+        return "Table reset with new random data.";
+    }
+
+    private void tableRewritten() {
+        searchCache.clear();
+        pendingChanges.changed();
+        // A new table is as large as a full write, so it goes straight into the table file
+        if (changeLog != null) {
+            compact();
+        } else if (writeBehind != null) {
+            writeBehind.changed();
         }
     }
 
@@ -64,17 +168,22 @@ public class TableServiceImpl implements TableService {
     public String search(String searchChoice, String target) {
         List<String> results = new ArrayList<>();
 
-        for (LinkedHashMap<String, String> row : this.table.getTableData()) {
-            for (Map.Entry<String, String> entry : row.entrySet()) {
-                boolean keyMatch = searchChoice.equalsIgnoreCase("K") && entry.getKey().contains(target);
-                boolean valueMatch = searchChoice.equalsIgnoreCase("V") && entry.getValue().contains(target);
-
-                if (keyMatch || valueMatch) {
-                    String found = "Found '" + target + "' in row " + table.getTableData().indexOf(row) +
-                            " with key '" + entry.getKey() + "' and value '" + entry.getValue() + "'.";
-                    results.add(found);
-                }
+        List<SearchHit> hits;
+        if (searchChoice.equalsIgnoreCase("K") || searchChoice.equalsIgnoreCase("V")) {
+            boolean keys = searchChoice.equalsIgnoreCase("K");
+            hits = searchCache().get(keys, target);
+            if (hits == null) {
+                hits = findHits(target, keys);
+                searchCache.put(keys, target, hits);
             }
+        } else {
+            hits = new ArrayList<>();
+        }
+
+        for (SearchHit hit : hits) {
+            String found = "Found '" + target + "' in row " + hit.getRowIndex() +
+                    " with key '" + hit.getKey() + "' and value '" + hit.getValue() + "'.";
+            results.add(found);
         }
 
         if (results.isEmpty()) {
@@ -84,11 +193,179 @@ public class TableServiceImpl implements TableService {
         return String.join("\n", results);
     }
 
+    @Override
+    public int searchHits(String searchChoice, String target, int limit, Predicate<SearchHit> handler) {
+        if (!searchChoice.equalsIgnoreCase("K") && !searchChoice.equalsIgnoreCase("V")) {
+            return 0;
+        }
+        boolean keys = searchChoice.equalsIgnoreCase("K");
+        List<SearchHit> cached = searchCache().get(keys, target);
+        if (cached != null) {
+            return handOver(cached, limit, handler);
+        }
+        if (searchMode == SearchMode.INDEX) {
+            TableIndex index = searchIndex();
+            int candidates = keys ? index.keyCandidates(target) : index.valueCandidates(target);
+            // The index answers with every hit at once, sorted into row order, so a search that may
+            // stop at its limit long before that streams from a scan instead
+            if (limit <= 0 || candidates <= limit) {
+                List<SearchHit> hits = keys ? index.findKeys(target) : index.findValues(target);
+                if (hits.size() <= SearchCache.MAX_CACHED_HITS) {
+                    searchCache.put(keys, target, hits);
+                }
+                return handOver(hits, limit, handler);
+            }
+        }
+
+        // Streamed hits come from a scan; they are only kept for the cache while they fit in it
+        List<SearchHit> found = new ArrayList<>();
+        boolean[] complete = {true};
+        Predicate<SearchHit> collecting = hit -> {
+            if (found.size() < SearchCache.MAX_CACHED_HITS) {
+                found.add(hit);
+            } else {
+                complete[0] = false;
+            }
+            if (!handler.test(hit)) {
+                complete[0] = false;
+                return false;
+            }
+            return true;
+        };
+        List<LinkedHashMap<String, String>> rows = table.getTableData();
+        int handed = searchMode == SearchMode.PARALLEL
+                ? rowSearch.streamParallel(rows, target, keys, limit, collecting)
+                : ParallelRowSearch.stream(rows, target, keys, limit, collecting);
+        if (complete[0] && (limit <= 0 || handed < limit)) {
+            searchCache.put(keys, target, found);
+        }
+        return handed;
+    }
+
+    // Hands the hits over like a scan would, stopping at the limit or when the handler declines
+    private static int handOver(List<SearchHit> hits, int limit, Predicate<SearchHit> handler) {
+        int handed = 0;
+        for (SearchHit hit : hits) {
+            if (limit > 0 && handed == limit) {
+                break;
+            }
+            handed++;
+            if (!handler.test(hit)) {
+                break;
+            }
+        }
+        return handed;
+    }
 
+    private List<SearchHit> findHits(String target, boolean keys) {
+        if (searchMode == SearchMode.INDEX) {
+            return keys ? searchIndex().findKeys(target) : searchIndex().findValues(target);
+        }
+        List<LinkedHashMap<String, String>> rows = table.getTableData();
+        if (searchMode == SearchMode.SCAN) {
+            List<SearchHit> hits = new ArrayList<>();
+            ParallelRowSearch.scan(rows, 0, rows.size(), target, keys, hits);
+            return hits;
+        }
+        return keys ? rowSearch.findKeys(rows, target) : rowSearch.findValues(rows, target);
+    }
+
+    private SearchCache searchCache() {
+        List<LinkedHashMap<String, String>> rows = table.getTableData();
+        if (searchCacheRows != rows) {
+            // Results of another list of rows say nothing about this one
+            searchCache.clear();
+            searchCacheRows = rows;
+        }
+        return searchCache;
+    }
+
+    private TableIndex searchIndex() {
+        List<LinkedHashMap<String, String>> rows = table.getTableData();
+        if (searchIndex == null || !searchIndex.isIndexing(rows)) {
+            searchIndex = new TableIndex(rows);
+        }
+        return searchIndex;
+    }
+
+    private KeyRegistry keyRegistry() {
+        List<LinkedHashMap<String, String>> rows = table.getTableData();
+        if (keyRegistry == null || keyRegistryRows != rows) {
+            keyRegistry = new KeyRegistry(rows);
+            keyRegistryRows = rows;
+        }
+        return keyRegistry;
+    }
+
+    private KeyIndex keyIndex() {
+        List<LinkedHashMap<String, String>> rows = table.getTableData();
+        if (keyIndex == null || !keyIndex.isIndexing(rows)) {
+            keyIndex = new KeyIndex(rows);
+        }
+        return keyIndex;
+    }
+
+    private void indexRowAdded(int rowIndex, LinkedHashMap<String, String> row) {
+        searchCache.rowInserted(rowIndex, row);
+        if (searchIndex != null) {
+            searchIndex.rowAdded(rowIndex, row);
+        }
+        if (keyIndex != null) {
+            keyIndex.rowAdded(rowIndex, row);
+        }
+        if (keyRegistry != null) {
+            keyRegistry.addRow(row);
+        }
+    }
+
+    private void indexRowReplaced(LinkedHashMap<String, String> oldRow, LinkedHashMap<String, String> newRow) {
+        if (searchIndex != null) {
+            searchIndex.rowReplaced(oldRow, newRow);
+        }
+        if (keyIndex != null) {
+            keyIndex.rowReplaced(oldRow, newRow);
+        }
+    }
+
+    private void logRowReplaced(int rowIndex, LinkedHashMap<String, String> newRow) {
+        if (changeLog != null) {
+            try {
+                changeLog.rowReplaced(rowIndex, newRow);
+            } catch (IOException e) {
+                inputHandler.printCustomMessage("An error occurred while logging the change: " + e.getMessage());
+            }
+        }
+        tableChanged();
+    }
+
+    private void tableChanged() {
+        pendingChanges.changed();
+        // A logged change is saved already, the table file is only rewritten once the log is long
+        boolean compactDue = changeLog != null && changeLog.size() >= COMPACT_THRESHOLD;
+        if (writeBehind != null) {
+            if (changeLog == null || compactDue) {
+                writeBehind.changed();
+            }
+        } else if (compactDue) {
+            compact();
+        }
+    }
+
+
+    // The answers are read before taking the lock, so a write-behind save never waits for the user
     @Override
-    public void editCell(String keyToEdit) {
+    public void editCell(String keyToEdit, Runnable answersRead) {
         try {
-            boolean keyFound = findAndEditCell(keyToEdit);
+            int holders;
+            synchronized (this) {
+                holders = keyIndex().rowsWithKey(keyToEdit).size();
+            }
+            List<String[]> answers = new ArrayList<>(holders);
+            for (int i = 0; i < holders; i++) {
+                answers.add(readEditAnswer());
+            }
+            answersRead.run();
+            boolean keyFound = holders > 0 && findAndEditCell(keyToEdit, answers);
 
             if (!keyFound) {
                 throw new IllegalArgumentException("Key '" + keyToEdit + "' not found in any row.");
@@ -101,58 +378,69 @@ public class TableServiceImpl implements TableService {
         }
     }
 
-    private boolean findAndEditCell(String keyToEdit) {
-        boolean keyFound = false;
-
-        for (int i = 0; i < table.getTableData().size(); i++) {
-            LinkedHashMap<String, String> row = table.getTableData().get(i);
-            if (row.containsKey(keyToEdit)) {
-                keyFound = true;
-                editCellAction(row, keyToEdit, i);
-            }
-        }
-
-        return keyFound;
-    }
-
-    private void editCellAction(LinkedHashMap<String, String> row, String keyToEdit, int rowIndex)  {
+    // The action (K or V) and the new key or value for one row holding the key
+    private String[] readEditAnswer() {
         // Prompt user for action (edit key or value)
         String actionChoice = inputHandler.getChoice(scanner, "Do you want to edit the key (K) or the value (V)? ");
 
         if (actionChoice.equalsIgnoreCase("K")) {
-            editKey(row, keyToEdit, rowIndex);
+            return new String[]{"K", inputHandler.getUserInputString(scanner, "Enter the new key: ")};
         } else if (actionChoice.equalsIgnoreCase("V")) {
-            editValue(row, keyToEdit);
+            return new String[]{"V", inputHandler.getUserInputString(scanner, "Enter the new value: ")};
         }
+        return null;
     }
 
-    private void editKey(LinkedHashMap<String, String> row, String keyToEdit, int rowIndex) {
-        // Prompt user for the new key
-        String newKey = inputHandler.getUserInputString(scanner, "Enter the new key: ");
+    private synchronized boolean findAndEditCell(String keyToEdit, List<String[]> answers) {
+        // Go straight to the rows holding the key, as they are now
+        List<Integer> rowIndexes = keyIndex().rowsWithKey(keyToEdit);
+        if (!rowIndexes.isEmpty() && rowIndexes.size() != answers.size()) {
+            // Another edit renamed the key meanwhile, the answers no longer match the rows
+            throw new IllegalArgumentException("The rows holding key '" + keyToEdit
+                    + "' changed while the answers were read. No changes made.");
+        }
+
+        for (int n = 0; n < rowIndexes.size(); n++) {
+            editCellAction(table.getTableData().get(rowIndexes.get(n)), keyToEdit, rowIndexes.get(n), answers.get(n));
+        }
+
+        return !rowIndexes.isEmpty();
+    }
+
+    private void editCellAction(LinkedHashMap<String, String> row, String keyToEdit, int rowIndex, String[] answer) {
+        if (answer == null) {
+            return;
+        }
+        if (answer[0].equals("K")) {
+            editKey(row, keyToEdit, rowIndex, answer[1]);
+        } else {
+            editValue(row, keyToEdit, rowIndex, answer[1]);
+        }
+    }
+
+    private void editKey(LinkedHashMap<String, String> row, String keyToEdit, int rowIndex, String newKey) {
 
         // Check if the new key already exists in other rows
-        boolean keyExistsInOtherRows = checkKeyExistsInOtherRows(row, newKey);
+        boolean keyExistsInOtherRows = keyRegistry().count(newKey) > (row.containsKey(newKey) ? 1 : 0);
 
         if (!row.containsKey(newKey)) {
             if (!keyExistsInOtherRows) {
                 // Store the value associated with the key
                 String valueToRetain = row.get(keyToEdit);
 
-                // Update the key
-                List<String> keyOrder = new ArrayList<>(row.keySet());
-                int keyIndex = keyOrder.indexOf(keyToEdit);
-                if (keyIndex != -1) {
-                    row.remove(keyToEdit);
-                    keyOrder.set(keyIndex, newKey);
-                    LinkedHashMap<String, String> updatedRow = new LinkedHashMap<>();
-                    for (String key : keyOrder) {
-                        updatedRow.put(key, row.get(key));
-                    }
-                    // Reassign the value to the new key
-                    updatedRow.put(newKey, valueToRetain);
-                    table.getTableData().set(rowIndex, updatedRow);
-                    inputHandler.printCustomMessage("Key updated successfully.");
+                // Update the key where it stands
+                renameKey(row, keyToEdit, newKey);
+                if (searchIndex != null) {
+                    searchIndex.keyRenamed(row, keyToEdit, newKey, valueToRetain);
+                }
+                if (keyIndex != null) {
+                    keyIndex.keyRenamed(row, keyToEdit, newKey);
                 }
+                searchCache.keyRenamed(keyToEdit, newKey, valueToRetain);
+                keyRegistry.remove(keyToEdit);
+                keyRegistry.add(newKey);
+                logRowReplaced(rowIndex, row);
+                inputHandler.printCustomMessage("Key updated successfully.");
             } else {
                 throw new IllegalArgumentException("Key '" + newKey + "' already exists in other rows.");
             }
@@ -162,21 +450,45 @@ public class TableServiceImpl implements TableService {
     }
 
 
-    private boolean checkKeyExistsInOtherRows(LinkedHashMap<String, String> currentRow, String key) {
-        for (LinkedHashMap<String, String> otherRow : table.getTableData()) {
-            if (otherRow != currentRow && otherRow.containsKey(key)) {
-                return true;
+    // Only the cells behind the renamed one are moved, back behind it
+    static void renameKey(LinkedHashMap<String, String> row, String oldKey, String newKey) {
+        int position = 0;
+        for (String key : row.keySet()) {
+            if (key.equals(oldKey)) {
+                break;
+            }
+            position++;
+        }
+        String[] following = new String[row.size() - position - 1];
+        int count = 0;
+        int i = 0;
+        for (String key : row.keySet()) {
+            if (i++ > position) {
+                following[count++] = key;
             }
         }
-        return false;
-    }
 
-    private void editValue(LinkedHashMap<String, String> row, String keyToEdit) {
-        // Prompt user for the new value
-        String newValue = inputHandler.getUserInputString(scanner, "Enter the new value: ");
+        row.put(newKey, row.remove(oldKey));
+        for (String key : following) {
+            row.put(key, row.remove(key));
+        }
+    }
 
+    private void editValue(LinkedHashMap<String, String> row, String keyToEdit, int rowIndex, String newValue) {
         // Update the value
-        row.put(keyToEdit, newValue);
+        String oldValue = row.put(keyToEdit, newValue);
+        if (searchIndex != null) {
+            searchIndex.valueChanged(row, keyToEdit, oldValue, newValue);
+        }
+        searchCache.valueChanged(keyToEdit, oldValue, newValue);
+        if (changeLog != null) {
+            try {
+                changeLog.valueChanged(rowIndex, keyToEdit, newValue);
+            } catch (IOException e) {
+                inputHandler.printCustomMessage("An error occurred while logging the change: " + e.getMessage());
+            }
+        }
+        tableChanged();
         inputHandler.printCustomMessage("Value updated successfully.");
     }
 
@@ -194,9 +506,19 @@ public class TableServiceImpl implements TableService {
         return printedTable.toString();
     }
 
+    @Override
+    public int printRows(Writer out, int fromRow, int toRow) throws IOException {
+        return TablePrinter.writeRows(table.getTableData(), fromRow, toRow, out);
+    }
+
+    @Override
+    public int getRowCount() {
+        return table.getTableData().size();
+    }
+
 
     @Override
-    public String addNewRow(int rowIndex, int numColumns) {
+    public synchronized String addNewRow(int rowIndex, int numColumns) {
         String resultMessage;
 
         try {
@@ -204,15 +526,27 @@ public class TableServiceImpl implements TableService {
             if (rowIndex >= 0 && rowIndex <= table.getTableData().size()) {
 
                 // Generate random key-value pairs for the new row
-                LinkedHashMap<String, String> newRow = generateRandomKeyValuePairs(numColumns);
+                LinkedHashMap<String, String> newRow = randomGenerator.row(numColumns, keyRegistry());
 
                 table.getTableData().add(rowIndex, newRow);
+                indexRowAdded(rowIndex, newRow);
+                if (changeLog != null) {
+                    try {
+                        changeLog.rowInserted(rowIndex, newRow);
+                    } catch (IOException e) {
+                        inputHandler.printCustomMessage("An error occurred while logging the change: " + e.getMessage());
+                    }
+                }
+                tableChanged();
                 resultMessage = "New row inserted successfully!";
             } else {
                 throw new IndexOutOfBoundsException("Invalid row index. Row not inserted.");
             }
         } catch (IndexOutOfBoundsException e) {
             resultMessage = e.getMessage();
+        } catch (IllegalArgumentException e) {
+            // Too many columns for the keys of a row
+            resultMessage = e.getMessage() + " Row not inserted.";
         }
 
         return resultMessage;
@@ -220,27 +554,21 @@ public class TableServiceImpl implements TableService {
 
 
     @Override
-    public String sortRow(int rowIndex) {
+    public synchronized String sortRow(int rowIndex) {
         String sortRowMessage;
         try {
 
             // Get the LinkedHashMap for the specified row
             LinkedHashMap<String, String> row = table.getTableData().get(rowIndex);
 
-            // Convert the entry set to a list of key-value pairs
-            List<Map.Entry<String, String>> entryList = new ArrayList<>(row.entrySet());
-
-            // Sort the list based on concatenated key-value pairs
-            entryList.sort(Comparator.comparing(e -> e.getKey() + e.getValue()));
-
-            // Rebuild sorted LinkedHashMap
-            LinkedHashMap<String, String> sortedRow = new LinkedHashMap<>();
-            for (Map.Entry<String, String> entry : entryList) {
-                sortedRow.put(entry.getKey(), entry.getValue());
-            }
+            // Sort based on concatenated key-value pairs
+            LinkedHashMap<String, String> sortedRow = TableSorter.sortCells(row, TableSorter.BY_KEY_AND_VALUE);
 
             // Replace the row with the sorted LinkedHashMap
             table.getTableData().set(rowIndex, sortedRow);
+            indexRowReplaced(row, sortedRow);
+            searchCache.rowChanged(rowIndex);
+            logRowReplaced(rowIndex, sortedRow);
 
             sortRowMessage = "Row " + rowIndex + " sorted successfully.";
         } catch (IndexOutOfBoundsException e) {
@@ -249,6 +577,39 @@ public class TableServiceImpl implements TableService {
         return sortRowMessage;
     }
 
+    @Override
+    public synchronized String sortAllRows(String sortChoice) {
+        Comparator<Map.Entry<String, String>> order;
+        try {
+            order = TableSorter.cellOrder(sortChoice);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        replaceRows(TableSorter.sortCellsOfEveryRow(table.getTableData(), order));
+        return "Every row sorted by " + (sortChoice.equalsIgnoreCase("K") ? "key." : "value.");
+    }
+
+    @Override
+    public synchronized String sortRowsByKey(String key) {
+        if (!keyRegistry().contains(key)) {
+            return "Key '" + key + "' not found in any row.";
+        }
+        replaceRows(TableSorter.orderRowsByKey(table.getTableData(), key));
+        return "Rows ordered by key '" + key + "'.";
+    }
+
+    // Same keys in other places: the registry stays valid, the index is rebuilt on the next search
+    private void replaceRows(List<LinkedHashMap<String, String>> newRows) {
+        ListIterator<LinkedHashMap<String, String>> rows = table.getTableData().listIterator();
+        for (LinkedHashMap<String, String> row : newRows) {
+            rows.next();
+            rows.set(row);
+        }
+        searchIndex = null;
+        keyIndex = null;
+        tableRewritten();
+    }
+
     @Override
     public List<LinkedHashMap<String, String>> loadTableFromJar(String filePath, String outputFile) {
         try (InputStream inputStream = getClass().getResourceAsStream(filePath)) {
@@ -267,7 +628,7 @@ public class TableServiceImpl implements TableService {
                 Files.copy(inputStream, outputFilePath, StandardCopyOption.REPLACE_EXISTING);
 
                 // BufferedReader should be created after the InputStream is copied
-                loadTableFromReader(new BufferedReader(new InputStreamReader(new FileInputStream(outputFilePath.toFile()))));
+                loadTableFromReader(new BufferedReader(new InputStreamReader(new FileInputStream(outputFilePath.toFile()), StandardCharsets.UTF_8)));
 
             } else {
                 inputHandler.printCustomMessage("\nResource not found.");
@@ -279,9 +640,33 @@ public class TableServiceImpl implements TableService {
     }
 
     @Override
-    public List<LinkedHashMap<String, String>> loadTableFromFile(String fileName) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            loadTableFromReader(reader);
+    public List<LinkedHashMap<String, String>> loadTableFromFile(String fileName, Runnable loaded) {
+        TableCodec codec = TableCodec.fromFileName(fileName);
+        boolean binary = BinaryTableFormat.isBinaryFile(fileName);
+        try {
+            if (codec == TableCodec.BLOCK_GZIP && !binary && loadMode == LoadMode.PARALLEL) {
+                new BlockGzipTableLoader().load(Paths.get(fileName), this::appendLoadedRow);
+            } else if (codec != TableCodec.NONE) {
+                // Compressed files are inflated as they are read, never into a temporary file
+                try (InputStream in = codec.wrap(new FileInputStream(fileName))) {
+                    if (binary) {
+                        binaryFormat.load(Channels.newChannel(in), this::appendLoadedRow);
+                    } else {
+                        loadTableFromReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+                    }
+                }
+            } else if (binary) {
+                binaryFormat.load(Paths.get(fileName), this::appendLoadedRow);
+            } else if (loadMode == LoadMode.MAPPED) {
+                new MappedTableLoader().load(Paths.get(fileName), this::appendLoadedRow);
+            } else if (loadMode == LoadMode.PARALLEL) {
+                new ParallelTableLoader().load(Paths.get(fileName), this::appendLoadedRow);
+            } else {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), StandardCharsets.UTF_8))) {
+                    loadTableFromReader(reader);
+                }
+            }
+            loaded.run();
         } catch (IOException e) {
             inputHandler.printCustomMessage("An error occurred while reading the file: " + e.getMessage());
         }
@@ -289,41 +674,177 @@ public class TableServiceImpl implements TableService {
     }
 
     private void loadTableFromReader(BufferedReader reader) throws IOException {
-        String line;
-        while ((line = reader.readLine()) != null) {
-            String[] keyValuePairs = line.split("\\|");
-
-            LinkedHashMap<String, String> row = new LinkedHashMap<>();
-
-            for (String pair : keyValuePairs) {
-                String[] parts = pair.split(":");
-                if (parts.length == 2) {
-                    String key = parts[0].trim();
-                    String value = parts[1].trim();
-                    row.put(key, value);
+        new TableTextParser().parse(reader, this::appendLoadedRow);
+    }
+
+    private void appendLoadedRow(LinkedHashMap<String, String> row) {
+        table.getTableData().add(row);
+        indexRowAdded(table.getTableData().size() - 1, row);
+    }
+
+    @Override
+    public void saveTableToFile(List<LinkedHashMap<String, String>> tableData, String fileName) {
+        try {
+            writeTableFile(tableData, fileName);
+        } catch (IOException e) {
+            inputHandler.printCustomMessage("An error occurred while saving the table: " + e.getMessage());
+        }
+    }
+
+    void writeTableFile(List<LinkedHashMap<String, String>> tableData, String fileName) throws IOException {
+        Path target = Paths.get(fileName);
+        Path temp = writeTempTableFile(tableData, target);
+        try {
+            AtomicFiles.replace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Writes the table next to the target, for the caller to rename over it or delete
+    Path writeTempTableFile(List<LinkedHashMap<String, String>> tableData, Path target) throws IOException {
+        TableCodec codec = TableCodec.fromFileName(target.toString());
+        boolean binary = BinaryTableFormat.isBinaryFile(target.toString());
+        Path temp = AtomicFiles.tempFileFor(target);
+        boolean written = false;
+        try {
+            try (FileChannel file = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (codec == TableCodec.NONE) {
+                    writeTable(tableData, binary, file);
+                    file.force(false);
+                } else {
+                    OutputStream out = codec.wrap(Channels.newOutputStream(file));
+                    try {
+                        writeTable(tableData, binary, Channels.newChannel(out));
+                        TableCodec.finish(out);
+                        file.force(false);
+                    } finally {
+                        out.close();
+                    }
                 }
             }
-            table.getTableData().add(row);
+            written = true;
+            return temp;
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private void writeTable(List<LinkedHashMap<String, String>> tableData, boolean binary, WritableByteChannel channel)
+            throws IOException {
+        if (binary) {
+            binaryFormat.write(tableData, channel);
+        } else {
+            tableWriter.write(tableData, channel);
         }
     }
 
     @Override
-    public void saveTableToFile(List<LinkedHashMap<String, String>> tableData, String fileName) {
-        try (FileWriter writer = new FileWriter(fileName)) {
-            for (LinkedHashMap<String, String> row : tableData) {
-                String rowString = StringUtils.join(
-                        row.entrySet().stream()
-                                .map(entry -> entry.getKey() + ":" + entry.getValue())
-                                .toArray(),
-                        " | "
-                );
-                writer.write(rowString + "\n");
+    public synchronized void enableChangeLog(String filePath) {
+        try {
+            if (changeLog != null) {
+                changeLog.close();
+                changeLog = null;
+            }
+            TableChangeLog log = new TableChangeLog(Paths.get(filePath));
+            tableFilePath = filePath;
+
+            // Bring in the changes a previous run logged but did not compact; a corrupt log is left for inspection
+            int replayed = log.replay(table.getTableData());
+            changeLog = log;
+            if (replayed > 0) {
+                searchCache.clear();
+                searchIndex = null;
+                keyRegistry = null;
+                keyIndex = null;
+            }
+            if (replayed > 0 || !new File(filePath).exists()) {
+                compact();
+            } else {
+                changeLog.truncate();
+            }
+        } catch (IOException e) {
+            inputHandler.printCustomMessage("An error occurred while opening the change log: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void enableWriteBehind(String filePath, long delayMillis, int maxOperations) {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+        if (tableFilePath == null) {
+            tableFilePath = filePath;
+        }
+        writeBehind = new WriteBehindFlusher(this::flush, delayMillis, maxOperations);
+    }
+
+    // The table is written from a copy outside the lock, so menu actions go on during a background save
+    @Override
+    public void compact() {
+        Path target;
+        List<LinkedHashMap<String, String>> snapshot;
+        TableChangeLog log;
+        long logMark;
+        long changes;
+        long snapshotNumber;
+        Path temp = null;
+        try {
+            synchronized (this) {
+                if (tableFilePath == null) {
+                    return;
+                }
+                target = Paths.get(tableFilePath);
+                snapshot = new ArrayList<>(table.getTableData().size());
+                for (LinkedHashMap<String, String> row : table.getTableData()) {
+                    snapshot.add(CompactRow.copyOf(row));
+                }
+                log = changeLog;
+                logMark = log != null ? log.mark() : 0;
+                changes = pendingChanges.total();
+                snapshotNumber = ++snapshots;
+            }
+
+            temp = writeTempTableFile(snapshot, target);
+
+            synchronized (this) {
+                // A slower save of an older snapshot must not replace a newer one
+                if (snapshotNumber > savedSnapshot) {
+                    AtomicFiles.replace(temp, target);
+                    savedSnapshot = snapshotNumber;
+                    // The log only drops the changes the table file now holds
+                    if (log != null && log == changeLog) {
+                        log.truncate(logMark);
+                    }
+                    pendingChanges.savedUpTo(changes);
+                }
             }
         } catch (IOException e) {
             inputHandler.printCustomMessage("An error occurred while saving the table: " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // Only a leftover temporary file
+                }
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (pendingChanges.isDirty()) {
+            compact();
         }
     }
 
+    public PendingChanges getPendingChanges() {
+        return pendingChanges;
+    }
+
     @Override
     public List<LinkedHashMap<String, String>> initializeTable(String[] args, Table table) {
         String relativeFileName = "MyTable.txt";
@@ -350,6 +871,11 @@ public class TableServiceImpl implements TableService {
             // If the file is not in the target folder or outside the jar, load from jar
             loadTableFromJar(jarFileName, fileName);
             table.setFilePath(fileInTargetFolder.exists() ? fileInTargetFolder.getAbsolutePath() : jarFileName);
+
+            // The bundled table is text, so store it in the format the file name asks for
+            if (BinaryTableFormat.isBinaryFile(fileName) && fileInTargetFolder.exists()) {
+                saveTableToFile(this.table.getTableData(), fileInTargetFolder.getAbsolutePath());
+            }
         }
 
         return table.getTableData();
@@ -358,28 +884,7 @@ public class TableServiceImpl implements TableService {
 
     @Override
     public LinkedHashMap<String, String> generateRandomKeyValuePairs(int numColumns) {
-        LinkedHashMap<String, String> randomPairs = new LinkedHashMap<>();
-
-        for (int i = 0; i < numColumns; i++) {
-            String key = generateRandomAsciiString(CHAR_LENGTH);
-            String value = generateRandomAsciiString(CHAR_LENGTH);
-            randomPairs.put(key, value);
-        }
-
-        return randomPairs;
+        return randomGenerator.row(numColumns);
     }
 
-    private String generateRandomAsciiString(int length) {
-        StringBuilder randomString = new StringBuilder();
-        while (randomString.length() < length) {
-            String randomChar = RandomStringUtils.randomAscii(1);
-            if (!" :|".contains(randomChar)) {
-                randomString.append(randomChar);
-            }
-        }
-        return randomString.toString();
-    }
-
-
-
 }
@@ -0,0 +1,102 @@
+package org.arqaine.maven.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Sorts the cells of rows and the rows of tables. The comparators walk the strings in place
+ * rather than building concatenations, and whole tables are sorted across cores: every row on
+ * its own for cell sorts, and with {@link Arrays#parallelSort} when ordering rows.
+ */
+public final class TableSorter {
+    // The order of sortRow: key and value read as one string
+    public static final Comparator<Map.Entry<String, String>> BY_KEY_AND_VALUE =
+            (a, b) -> compareConcatenated(a.getKey(), a.getValue(), b.getKey(), b.getValue());
+    public static final Comparator<Map.Entry<String, String>> BY_KEY =
+            (a, b) -> {
+                int byKey = a.getKey().compareTo(b.getKey());
+                return byKey != 0 ? byKey : a.getValue().compareTo(b.getValue());
+            };
+    public static final Comparator<Map.Entry<String, String>> BY_VALUE =
+            (a, b) -> {
+                int byValue = a.getValue().compareTo(b.getValue());
+                return byValue != 0 ? byValue : a.getKey().compareTo(b.getKey());
+            };
+
+    private TableSorter() {
+    }
+
+    // BY_KEY for K and BY_VALUE for V, as search takes its choice
+    public static Comparator<Map.Entry<String, String>> cellOrder(String sortChoice) {
+        if (sortChoice.equalsIgnoreCase("K")) {
+            return BY_KEY;
+        } else if (sortChoice.equalsIgnoreCase("V")) {
+            return BY_VALUE;
+        }
+        throw new IllegalArgumentException("Invalid sort choice. Please enter 'K' or 'V'.");
+    }
+
+    public static LinkedHashMap<String, String> sortCells(Map<String, String> row,
+                                                          Comparator<Map.Entry<String, String>> order) {
+        List<Map.Entry<String, String>> entries = new ArrayList<>(row.entrySet());
+        entries.sort(order);
+        LinkedHashMap<String, String> sortedRow = new LinkedHashMap<>(Math.max(16, entries.size() * 4 / 3 + 1));
+        for (Map.Entry<String, String> entry : entries) {
+            sortedRow.put(entry.getKey(), entry.getValue());
+        }
+        return sortedRow;
+    }
+
+    // Copies of the rows with their cells sorted, made in parallel over an array of the rows
+    public static List<LinkedHashMap<String, String>> sortCellsOfEveryRow(List<? extends Map<String, String>> rows,
+                                                                          Comparator<Map.Entry<String, String>> order) {
+        List<Map<String, String>> source = new ArrayList<>(rows);
+        LinkedHashMap<String, String>[] sorted = newRowArray(source.size());
+        IntStream.range(0, sorted.length).parallel()
+                .forEach(i -> sorted[i] = sortCells(source.get(i), order));
+        return Arrays.asList(sorted);
+    }
+
+    /**
+     * The rows ordered by the value they hold for the key, rows without the key last. The sort
+     * is stable, so rows with equal values keep their order.
+     */
+    public static List<LinkedHashMap<String, String>> orderRowsByKey(List<LinkedHashMap<String, String>> rows, String key) {
+        LinkedHashMap<String, String>[] ordered = rows.toArray(newRowArray(rows.size()));
+        Arrays.parallelSort(ordered, (a, b) -> {
+            String valueA = a.get(key);
+            String valueB = b.get(key);
+            if (valueA == null || valueB == null) {
+                return valueA == null ? (valueB == null ? 0 : 1) : -1;
+            }
+            return valueA.compareTo(valueB);
+        });
+        return Arrays.asList(ordered);
+    }
+
+    // Arrays of a generic type can only be made through a cast
+    @SuppressWarnings("unchecked")
+    private static LinkedHashMap<String, String>[] newRowArray(int length) {
+        return (LinkedHashMap<String, String>[]) new LinkedHashMap<?, ?>[length];
+    }
+
+    // Compares a1 + b1 with a2 + b2 the way String.compareTo would, without building them
+    static int compareConcatenated(String a1, String b1, String a2, String b2) {
+        int length1 = a1.length() + b1.length();
+        int length2 = a2.length() + b2.length();
+        int common = Math.min(length1, length2);
+        for (int i = 0; i < common; i++) {
+            char c1 = i < a1.length() ? a1.charAt(i) : b1.charAt(i - a1.length());
+            char c2 = i < a2.length() ? a2.charAt(i) : b2.charAt(i - a2.length());
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return length1 - length2;
+    }
+}
@@ -0,0 +1,129 @@
+package org.arqaine.maven.service.impl;
+
+import org.arqaine.maven.model.CompactRow;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Single-pass tokenizer for the {@code key:value | key:value} table format.
+ *
+ * Lines end at {@code \n}, {@code \r} or {@code \r\n}, like {@link java.io.BufferedReader#readLine()}.
+ * It keeps the rules of the former {@code split("\\|")} / {@code split(":")} parser: every line
+ * becomes a row, keys and values are trimmed, and a pair is kept only when it holds exactly one
+ * colon once any colons at its very end are ignored.
+ */
+public class TableTextParser {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private char[] buffer;
+
+    public TableTextParser() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public TableTextParser(int bufferSize) {
+        buffer = new char[bufferSize];
+    }
+
+    public void parse(Reader reader, Consumer<LinkedHashMap<String, String>> rowConsumer) throws IOException {
+        int start = 0;
+        int end = 0;
+        boolean skipLineFeed = false;
+
+        while (true) {
+            // Look for the end of the current line in what is already buffered
+            int scan = start;
+            int lineEnd = -1;
+            while (true) {
+                for (; scan < end; scan++) {
+                    char c = buffer[scan];
+                    if (skipLineFeed) {
+                        skipLineFeed = false;
+                        if (c == '\n') {
+                            start++;
+                            continue;
+                        }
+                    }
+                    if (c == '\n' || c == '\r') {
+                        lineEnd = scan;
+                        break;
+                    }
+                }
+                if (lineEnd >= 0) {
+                    break;
+                }
+
+                // Keep the partial line and read more behind it
+                if (start > 0) {
+                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                    scan -= start;
+                    end -= start;
+                    start = 0;
+                }
+                if (end == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                int read = reader.read(buffer, end, buffer.length - end);
+                if (read < 0) {
+                    if (end > start) {
+                        rowConsumer.accept(parseLine(buffer, start, end));
+                    }
+                    return;
+                }
+                end += read;
+            }
+
+            rowConsumer.accept(parseLine(buffer, start, lineEnd));
+            skipLineFeed = buffer[lineEnd] == '\r';
+            start = lineEnd + 1;
+        }
+    }
+
+    public static LinkedHashMap<String, String> parseLine(char[] chars, int from, int to) {
+        CompactRow.Builder row = new CompactRow.Builder();
+        int pairStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || chars[i] == '|') {
+                addPair(chars, pairStart, i, row);
+                pairStart = i + 1;
+            }
+        }
+        return row.build();
+    }
+
+    private static void addPair(char[] chars, int from, int to, CompactRow.Builder row) {
+        int colons = 0;
+        int firstColon = -1;
+        int trailingColons = 0;
+        for (int i = from; i < to; i++) {
+            if (chars[i] == ':') {
+                if (firstColon < 0) {
+                    firstColon = i;
+                }
+                colons++;
+                trailingColons++;
+            } else {
+                trailingColons = 0;
+            }
+        }
+        if (colons - trailingColons != 1) {
+            return;
+        }
+        row.put(trimmed(chars, from, firstColon), trimmed(chars, firstColon + 1, to - trailingColons));
+    }
+
+    // Same whitespace rule as String.trim()
+    private static String trimmed(char[] chars, int from, int to) {
+        while (from < to && chars[from] <= ' ') {
+            from++;
+        }
+        while (to > from && chars[to - 1] <= ' ') {
+            to--;
+        }
+        return new String(chars, from, to - from);
+    }
+}
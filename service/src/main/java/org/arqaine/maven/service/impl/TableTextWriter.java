@@ -0,0 +1,117 @@
+package org.arqaine.maven.service.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes tables in the {@code key:value | key:value} format by encoding cells as UTF-8 straight
+ * into a reusable byte buffer that is drained through a {@link FileChannel}.
+ *
+ * The table goes to a temporary file in the target's directory, is forced to disk and then
+ * renamed over the target, so a crash in the middle of a save leaves the previous file intact.
+ */
+public class TableTextWriter {
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private int position;
+
+    public TableTextWriter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public TableTextWriter(int bufferSize) {
+        bytes = new byte[Math.max(16, bufferSize)];
+        buffer = ByteBuffer.wrap(bytes);
+    }
+
+    public synchronized void write(List<? extends Map<String, String>> tableData, Path target) throws IOException {
+        Path temp = AtomicFiles.tempFileFor(target);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                write(tableData, channel);
+                channel.force(false);
+            }
+            AtomicFiles.replace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public synchronized void write(List<? extends Map<String, String>> tableData, WritableByteChannel channel) throws IOException {
+        position = 0;
+        for (Map<String, String> row : tableData) {
+            boolean first = true;
+            for (Map.Entry<String, String> entry : row.entrySet()) {
+                if (!first) {
+                    putAscii(channel, " | ");
+                }
+                first = false;
+                put(channel, entry.getKey());
+                putByte(channel, (byte) ':');
+                put(channel, entry.getValue());
+            }
+            putByte(channel, (byte) '\n');
+        }
+        drain(channel);
+    }
+
+    private void put(WritableByteChannel channel, String s) throws IOException {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            if (bytes.length - position < 4) {
+                drain(channel);
+            }
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes[position++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[position++] = (byte) (0xc0 | (c >> 6));
+                bytes[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                bytes[position++] = (byte) (0xf0 | (codePoint >> 18));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                bytes[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are replaced, as the JDK's UTF-8 encoder does
+                bytes[position++] = (byte) '?';
+            } else {
+                bytes[position++] = (byte) (0xe0 | (c >> 12));
+                bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                bytes[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private void putAscii(WritableByteChannel channel, String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            putByte(channel, (byte) s.charAt(i));
+        }
+    }
+
+    private void putByte(WritableByteChannel channel, byte b) throws IOException {
+        if (position == bytes.length) {
+            drain(channel);
+        }
+        bytes[position++] = b;
+    }
+
+    private void drain(WritableByteChannel channel) throws IOException {
+        buffer.clear();
+        buffer.limit(position);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        position = 0;
+    }
+}
@@ -0,0 +1,108 @@
+package org.arqaine.maven.service.impl;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces changes into one background flush, run {@code delayMillis} after the first unsaved
+ * change or as soon as {@code maxOperations} changes are pending, whichever comes first.
+ * A JVM shutdown hook flushes whatever is still pending.
+ */
+public class WriteBehindFlusher implements Closeable {
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_MILLIS = 10000;
+
+    private final Runnable flushAction;
+    private final long delayMillis;
+    private final int maxOperations;
+    private final ScheduledExecutorService executor;
+    private final Thread shutdownHook;
+
+    private int pendingOperations;
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean immediate;
+
+    public WriteBehindFlusher(Runnable flushAction, long delayMillis, int maxOperations) {
+        if (delayMillis < 0 || maxOperations < 1) {
+            throw new IllegalArgumentException("Delay must not be negative and at least one operation is needed per flush.");
+        }
+        this.flushAction = flushAction;
+        this.delayMillis = delayMillis;
+        this.maxOperations = maxOperations;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "table-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.shutdownHook = new Thread(this::flushOnShutdown, "table-write-behind-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public synchronized void changed() {
+        pendingOperations++;
+        if (pendingOperations >= maxOperations) {
+            if (!immediate) {
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                }
+                scheduledFlush = executor.schedule(this::runFlush, 0, TimeUnit.MILLISECONDS);
+                immediate = true;
+            }
+        } else if (scheduledFlush == null) {
+            scheduledFlush = executor.schedule(this::runFlush, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized int getPendingOperations() {
+        return pendingOperations;
+    }
+
+    // Flushes on the calling thread and drops the scheduled flush
+    public void flushNow() {
+        synchronized (this) {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+            }
+            reset();
+        }
+        flushAction.run();
+    }
+
+    private void runFlush() {
+        synchronized (this) {
+            reset();
+        }
+        flushAction.run();
+    }
+
+    // A flush blocked behind an unfinished interactive edit must not keep the JVM from exiting
+    private void flushOnShutdown() {
+        Thread flusher = new Thread(flushAction, "table-write-behind-final");
+        flusher.setDaemon(true);
+        flusher.start();
+        try {
+            flusher.join(SHUTDOWN_FLUSH_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reset() {
+        pendingOperations = 0;
+        scheduledFlush = null;
+        immediate = false;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        flushNow();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down, the hook runs anyway
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.arqaine.maven.service.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BinaryTableFormatTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testEveryTruncationIsReportedAsCorrupt() throws IOException {
+        byte[] valid = validFile();
+        for (int length = 0; length < valid.length; length++) {
+            assertCorrupt(Arrays.copyOf(valid, length));
+        }
+        assertEquals(2, load(valid).size());
+    }
+
+    @Test
+    public void testOutOfRangeCountsAndIdsAreReportedAsCorrupt() throws IOException {
+        byte[] valid = validFile();
+
+        // String count, then row count, in the header
+        assertCorrupt(withInt(valid, 8, Integer.MAX_VALUE));
+        assertCorrupt(withInt(valid, 8, -1));
+        assertCorrupt(withInt(valid, 12, Integer.MAX_VALUE));
+        assertCorrupt(withInt(valid, 12, -5));
+
+        // The first string length, then the last value id
+        byte[] hugeString = valid.clone();
+        hugeString[16] = (byte) 0x7f;
+        assertCorrupt(hugeString);
+        byte[] badId = valid.clone();
+        badId[badId.length - 1] = 100;
+        assertCorrupt(badId);
+    }
+
+    private byte[] validFile() throws IOException {
+        LinkedHashMap<String, String> row1 = new LinkedHashMap<>();
+        row1.put("a", "b");
+        LinkedHashMap<String, String> row2 = new LinkedHashMap<>();
+        row2.put("c", "a");
+        Path file = tempFolder.newFile("valid.tbin").toPath();
+        new BinaryTableFormat().write(Arrays.asList(row1, row2), file);
+        return Files.readAllBytes(file);
+    }
+
+    private static byte[] withInt(byte[] bytes, int offset, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(offset, value);
+        return copy;
+    }
+
+    private List<LinkedHashMap<String, String>> load(byte[] bytes) throws IOException {
+        List<LinkedHashMap<String, String>> rows = new ArrayList<>();
+        new BinaryTableFormat().load(Channels.newChannel(new ByteArrayInputStream(bytes)), rows::add);
+        return rows;
+    }
+
+    // Both from a file, where the size is known, and from a stream such as a compressed file
+    private void assertCorrupt(byte[] bytes) throws IOException {
+        Path file = tempFolder.newFile().toPath();
+        Files.write(file, bytes);
+        try {
+            new BinaryTableFormat().load(file, row -> { });
+            fail("Loaded a corrupt file of " + bytes.length + " bytes");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Corrupt table file"));
+        }
+        try {
+            load(bytes);
+            fail("Loaded a corrupt stream of " + bytes.length + " bytes");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.arqaine.maven.service.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BlockGzipTableLoaderTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testOutOfRangeMemberSizesAreReportedAsCorrupt() throws IOException {
+        byte[] valid = validFile();
+        assertEquals(2, load(valid).size());
+
+        // The block size in the TB subfield of the first member
+        assertCorrupt(withInt(valid, 16, 0));
+        assertCorrupt(withInt(valid, 16, -1));
+        assertCorrupt(withInt(valid, 16, BlockGzipOutputStream.HEADER_SIZE + BlockGzipOutputStream.TRAILER_SIZE - 1));
+        assertCorrupt(withInt(valid, 16, valid.length + 1));
+        assertCorrupt(withInt(valid, 16, Integer.MAX_VALUE));
+        // A header alone, claiming to be its own member
+        assertCorrupt(withInt(Arrays.copyOf(valid, BlockGzipOutputStream.HEADER_SIZE), 16, 0));
+    }
+
+    @Test
+    public void testOutOfRangeUncompressedSizesAreReportedAsCorrupt() throws IOException {
+        byte[] valid = validFile();
+        int firstMemberSize = ByteBuffer.wrap(valid).order(ByteOrder.LITTLE_ENDIAN).getInt(16);
+
+        assertCorrupt(withInt(valid, firstMemberSize - 4, -1));
+        assertCorrupt(withInt(valid, firstMemberSize - 4, Integer.MAX_VALUE));
+    }
+
+    private byte[] validFile() throws IOException {
+        LinkedHashMap<String, String> row1 = new LinkedHashMap<>();
+        row1.put("a", "b");
+        LinkedHashMap<String, String> row2 = new LinkedHashMap<>();
+        row2.put("c", "d");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new BlockGzipOutputStream(bytes, 1024)) {
+            new TableTextWriter().write(Arrays.asList(row1, row2), Channels.newChannel(out));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] withInt(byte[] bytes, int offset, int value) {
+        byte[] changed = bytes.clone();
+        ByteBuffer.wrap(changed).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+        return changed;
+    }
+
+    private List<LinkedHashMap<String, String>> load(byte[] bytes) throws IOException {
+        Path file = tempFolder.newFile().toPath();
+        Files.write(file, bytes);
+        List<LinkedHashMap<String, String>> rows = new ArrayList<>();
+        new BlockGzipTableLoader().load(file, rows::add);
+        return rows;
+    }
+
+    private void assertCorrupt(byte[] bytes) {
+        try {
+            load(bytes);
+            fail("Loaded a corrupt file");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Corrupt table file"));
+        }
+    }
+}
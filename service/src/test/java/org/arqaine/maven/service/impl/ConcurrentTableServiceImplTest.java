@@ -0,0 +1,261 @@
+package org.arqaine.maven.service.impl;
+
+import org.arqaine.maven.model.Table;
+import org.arqaine.maven.util.InputHandler;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ConcurrentTableServiceImplTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Table table;
+    private InputHandler inputHandler;
+    private ConcurrentTableServiceImpl tableService;
+
+    @Before
+    public void setUp() {
+        table = new Table();
+        LinkedHashMap<String, String> row1 = new LinkedHashMap<>();
+        row1.put("key1", "value1");
+        row1.put("key2", "value2");
+        LinkedHashMap<String, String> row2 = new LinkedHashMap<>();
+        row2.put("key3", "value3");
+        row2.put("key4", "value4");
+        table.setTableData(new ArrayList<>(Arrays.asList(row1, row2)));
+
+        inputHandler = mock(InputHandler.class);
+        tableService = new ConcurrentTableServiceImpl(table, mock(Scanner.class), inputHandler);
+    }
+
+    @Test
+    public void testEditCellReplacesRowInsteadOfChangingIt() {
+        LinkedHashMap<String, String> original = table.getTableData().get(0);
+        when(inputHandler.getChoice(any(Scanner.class), anyString())).thenReturn("V");
+        when(inputHandler.getUserInputString(any(Scanner.class), anyString())).thenReturn("newValue");
+
+        tableService.editCell("key1");
+
+        assertEquals("value1", original.get("key1"));
+        assertEquals("newValue", table.getTableData().get(0).get("key1"));
+        assertEquals("Found 'newValue' in row 0 with key 'key1' and value 'newValue'.", tableService.search("V", "newValue"));
+        verify(inputHandler).printCustomMessage("Value updated successfully.");
+    }
+
+    @Test
+    public void testReadersRunWhileRowsAreAddedAndSorted() throws Exception {
+        int writers = 4;
+        int rowsPerWriter = 500;
+        AtomicBoolean done = new AtomicBoolean();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < rowsPerWriter; i++) {
+                        assertEquals("New row inserted successfully!", tableService.addNewRow(0, 3));
+                        assertEquals("Row 1 sorted successfully.", tableService.sortRow(1));
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }));
+        }
+        Thread reader = new Thread(() -> {
+            try {
+                start.await();
+                while (!done.get()) {
+                    tableService.search("K", "key");
+                    tableService.printTable();
+                }
+            } catch (Throwable t) {
+                failures.add(t);
+            }
+        });
+
+        reader.start();
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        done.set(true);
+        reader.join();
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(2 + writers * rowsPerWriter, table.getTableData().size());
+        assertTrue(tableService.search("K", "key1").startsWith("Found 'key1'"));
+    }
+
+    @Test
+    public void testResetSwapsWholeTable() throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        ConcurrentLinkedQueue<Integer> sizes = new ConcurrentLinkedQueue<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                sizes.add(tableService.printTable().split("\n").length);
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 50; i++) {
+            tableService.reset(i % 2 == 0 ? 100 : 200, 2);
+        }
+        done.set(true);
+        reader.join();
+
+        for (int size : sizes) {
+            assertTrue("Saw a table with " + size + " rows", size == 2 || size == 100 || size == 200);
+        }
+        assertEquals(200, table.getTableData().size());
+    }
+
+    @Test
+    public void testTooManyColumnsAreReportedAndLeaveTheTableAlone() {
+        int rows = tableService.getRowCount();
+        assertEquals("A row can have at most 778688 columns. Table not reset.", tableService.reset(1, 1000000));
+        assertEquals("A row can have at most 778688 columns. Row not inserted.", tableService.addNewRow(0, 1000000));
+        assertEquals(rows, tableService.getRowCount());
+    }
+
+    @Test
+    public void testRowsAddedDuringResetsAreInTheNewRegistry() throws Exception {
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 300; i++) {
+                        tableService.addNewRow(0, 3);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (int i = 0; i < 30; i++) {
+            tableService.reset(20, 3);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        KeyRegistry registry = tableService.getKeyRegistry();
+        for (LinkedHashMap<String, String> row : table.getTableData()) {
+            for (String key : row.keySet()) {
+                assertEquals("Registry count of " + key, 1, registry.count(key));
+            }
+        }
+    }
+
+    @Test
+    public void testChangeLogKeepsConcurrentEdits() throws Exception {
+        File file = folder.newFile("table.txt");
+        tableService.saveTableToFile(table.getTableData(), file.getAbsolutePath());
+        tableService.enableChangeLog(file.getAbsolutePath());
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    tableService.addNewRow(1, 2);
+                    tableService.sortRow(0);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Table reloaded = new Table();
+        ConcurrentTableServiceImpl other = new ConcurrentTableServiceImpl(reloaded, mock(Scanner.class), inputHandler);
+        other.loadTableFromFile(file.getAbsolutePath());
+        other.enableChangeLog(file.getAbsolutePath());
+
+        assertEquals(tableService.printTable(), other.printTable());
+        verify(inputHandler, never()).printCustomMessage(startsWith("An error occurred"));
+    }
+
+    @Test
+    public void testCompactionsDuringEditsKeepEveryEdit() throws Exception {
+        File file = folder.newFile("table.txt");
+        tableService.saveTableToFile(table.getTableData(), file.getAbsolutePath());
+        tableService.enableChangeLog(file.getAbsolutePath());
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread compactor = new Thread(() -> {
+            while (!done.get()) {
+                tableService.compact();
+            }
+        });
+        compactor.start();
+        for (int i = 0; i < 200; i++) {
+            tableService.addNewRow(i % 3, 2);
+        }
+        done.set(true);
+        compactor.join();
+
+        Table reloaded = new Table();
+        ConcurrentTableServiceImpl other = new ConcurrentTableServiceImpl(reloaded, mock(Scanner.class), inputHandler);
+        other.loadTableFromFile(file.getAbsolutePath());
+        other.enableChangeLog(file.getAbsolutePath());
+
+        assertEquals(tableService.printTable(), other.printTable());
+        verify(inputHandler, never()).printCustomMessage(startsWith("An error occurred"));
+    }
+
+    @Test
+    public void testRowListMatchesAnArrayListAcrossLeafAndBranchSplits() {
+        ConcurrentRowList rows = new ConcurrentRowList();
+        List<LinkedHashMap<String, String>> expected = new ArrayList<>();
+        java.util.Random random = new java.util.Random(7);
+        List<LinkedHashMap<String, String>> early = null;
+        for (int i = 0; i < 5000; i++) {
+            LinkedHashMap<String, String> row = new LinkedHashMap<>();
+            row.put("k" + i, "v" + i);
+            int index = i % 4 == 0 ? expected.size() : random.nextInt(expected.size() + 1);
+            rows.add(index, row);
+            expected.add(index, row);
+            if (i % 10 == 0) {
+                int replaced = random.nextInt(expected.size());
+                rows.set(replaced, row);
+                expected.set(replaced, row);
+            }
+            if (i == 100) {
+                early = rows.snapshot();
+            }
+        }
+        for (int i = 0; i < 500; i++) {
+            int removed = random.nextInt(expected.size());
+            assertSame(expected.remove(removed), rows.remove(removed));
+        }
+
+        assertEquals(expected, new ArrayList<>(rows));
+        for (int i = 0; i < expected.size(); i += 97) {
+            assertSame(expected.get(i), rows.get(i));
+        }
+        assertEquals(101, early.size());
+    }
+}
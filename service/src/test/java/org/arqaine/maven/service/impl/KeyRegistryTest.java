@@ -0,0 +1,59 @@
+package org.arqaine.maven.service.impl;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class KeyRegistryTest {
+
+    @Test
+    public void testCountsEncodedAndOtherKeys() {
+        KeyRegistry registry = new KeyRegistry();
+        assertEquals("a~!", KeyRegistry.decode(KeyRegistry.encode("a~!")));
+        assertEquals(-1, KeyRegistry.encode("key1"));
+        assertEquals(-1, KeyRegistry.encode("a:b"));
+
+        registry.add("abc");
+        registry.add("abc");
+        registry.add("key1");
+        assertEquals(2, registry.count("abc"));
+        assertEquals(1, registry.count("key1"));
+        assertEquals(KeyRegistry.KEY_SPACE - 1, registry.freeCodes());
+
+        registry.remove("abc");
+        registry.remove("key1");
+        assertTrue(registry.contains("abc"));
+        assertFalse(registry.contains("key1"));
+        assertEquals(KeyRegistry.encode("abd"), registry.nextFreeCode(KeyRegistry.encode("abc")));
+    }
+
+    @Test
+    public void testGeneratedKeysAreDistinct() {
+        RandomTableGenerator generator = new RandomTableGenerator(new SplittableRandom(1), 3, ForkJoinPool.commonPool());
+        List<LinkedHashMap<String, String>> rows = generator.rows(50000, 10);
+        KeyRegistry registry = new KeyRegistry(rows);
+        assertEquals(KeyRegistry.KEY_SPACE - 500000, registry.freeCodes());
+
+        // With almost every key taken, a new row still gets the free ones
+        for (int code = 0; registry.freeCodes() > 3; code++) {
+            String key = KeyRegistry.decode(code);
+            if (!registry.contains(key)) {
+                registry.add(key);
+            }
+        }
+        LinkedHashMap<String, String> row = generator.row(3, registry);
+        assertEquals(3, row.size());
+        for (String key : row.keySet()) {
+            assertFalse(registry.contains(key));
+        }
+
+        registry.addRow(row);
+        assertEquals(0, registry.freeCodes());
+        assertEquals(5, generator.row(5, registry).size());
+    }
+}
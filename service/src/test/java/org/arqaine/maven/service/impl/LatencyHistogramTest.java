@@ -0,0 +1,35 @@
+package org.arqaine.maven.service.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000L, histogram.getMax());
+        assertEquals(50_000_500.0, histogram.getMean(), 0.001);
+        for (double percentile : new double[]{1, 50, 90, 99, 99.9, 100}) {
+            double exact = percentile * 1000 * 1000;
+            long reported = histogram.valueAtPercentile(percentile);
+            assertTrue(percentile + "th percentile " + reported, reported >= exact && reported <= exact * 1.04);
+        }
+        assertEquals(0, new LatencyHistogram().valueAtPercentile(99));
+    }
+
+    @Test
+    public void testBucketsCoverEveryValue() {
+        for (long value : new long[]{0, 1, 63, 64, 65, 127, 128, 1_000_003, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(value + " above its bucket", LatencyHistogram.highestValue(bucket) >= value);
+            assertTrue(value + " in a later bucket", bucket == 0 || LatencyHistogram.highestValue(bucket - 1) < value);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.arqaine.maven.service.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MappedTableLoaderTest {
+    private static final String CONTENT = "key1:value1 | key2:value2\r\n"
+            + "  spaced : out |a:b:c| trailing:colon::\r"
+            + "\n"
+            + "kéy:välue | last:row";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testMatchesTextParserForEveryChunkSize() throws IOException {
+        File file = tempFolder.newFile("mapped.txt");
+        Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+
+        List<LinkedHashMap<String, String>> expected = new ArrayList<>();
+        new TableTextParser().parse(new StringReader(CONTENT), expected::add);
+
+        // Small windows split lines, \r\n pairs and multi-byte characters at every offset
+        for (int chunkSize = 1; chunkSize <= CONTENT.length() + 1; chunkSize++) {
+            List<LinkedHashMap<String, String>> rows = new ArrayList<>();
+            new MappedTableLoader(chunkSize).load(file.toPath(), rows::add);
+            assertEquals("chunk size " + chunkSize, expected, rows);
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        File file = tempFolder.newFile("empty.txt");
+        List<LinkedHashMap<String, String>> rows = new ArrayList<>();
+
+        new MappedTableLoader().load(file.toPath(), rows::add);
+
+        assertTrue(rows.isEmpty());
+    }
+}
@@ -0,0 +1,109 @@
+package org.arqaine.maven.service.impl;
+
+import org.arqaine.maven.model.Table;
+import org.arqaine.maven.util.InputHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Scanner;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MetricsTableServiceTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Table table;
+    private MetricsTableService tableService;
+
+    @Before
+    public void setUp() {
+        table = new Table();
+        LinkedHashMap<String, String> row1 = new LinkedHashMap<>();
+        row1.put("key1", "value1");
+        LinkedHashMap<String, String> row2 = new LinkedHashMap<>();
+        row2.put("key2", "value2");
+        table.setTableData(new ArrayList<>(Arrays.asList(row1, row2)));
+        tableService = new MetricsTableService(new TableServiceImpl(table, mock(Scanner.class), mock(InputHandler.class)));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        tableService.unregisterMBeans();
+    }
+
+    @Test
+    public void testRecordsCountsSizesAndBytes() throws Exception {
+        tableService.search("K", "key1");
+        tableService.search("V", "value");
+        tableService.addNewRow(0, 2);
+        StringWriter out = new StringWriter();
+        tableService.printRows(out, 0, 10);
+
+        File file = folder.newFile("table.txt");
+        tableService.saveTableToFile(table.getTableData(), file.getAbsolutePath());
+
+        OperationMetrics search = tableService.getOperation("search");
+        assertEquals(2, search.getCount());
+        assertEquals(0, search.getErrors());
+        assertEquals(2, search.getLastTableRows());
+        assertEquals(3, tableService.getOperation("addNewRow").getMaxTableRows());
+        assertEquals(out.toString().length(), tableService.getOperation("printRows").getBytesWritten());
+        assertEquals(file.length(), tableService.getOperation("saveTableToFile").getBytesWritten());
+        assertTrue(search.getP99Millis() >= search.getP50Millis());
+
+        String report = tableService.report();
+        assertTrue(report, report.contains("search"));
+        assertFalse(report, report.contains("editCell"));
+    }
+
+    @Test
+    public void testOperationsAreExposedOverJmx() throws Exception {
+        tableService.registerMBeans();
+        tableService.sortRow(0);
+        tableService.sortRow(5);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(MetricsTableService.JMX_DOMAIN + ":type=TableService,operation=sortRow");
+        assertEquals(2L, server.getAttribute(name, "Count"));
+        assertEquals(2L, server.getAttribute(name, "LastTableRows"));
+    }
+
+    @Test
+    public void testEditCellTimesOnlyTheEditAndFailedLoadsReadNoBytes() throws Exception {
+        InputHandler slowUser = mock(InputHandler.class);
+        when(slowUser.getChoice(any(Scanner.class), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return "V";
+        });
+        when(slowUser.getUserInputString(any(Scanner.class), anyString())).thenReturn("newValue");
+        tableService = new MetricsTableService(new TableServiceImpl(table, mock(Scanner.class), slowUser));
+
+        tableService.editCell("key1");
+        OperationMetrics editCell = tableService.getOperation("editCell");
+        assertEquals(1, editCell.getCount());
+        assertTrue("Took " + editCell.getMaxMillis() + " ms", editCell.getMaxMillis() < 300);
+
+        tableService.loadTableFromFile(new File(folder.getRoot(), "missing.txt").getAbsolutePath());
+        assertEquals(0, tableService.getOperation("loadTableFromFile").getBytesRead());
+        File file = folder.newFile("table.txt");
+        tableService.saveTableToFile(table.getTableData(), file.getAbsolutePath());
+        tableService.loadTableFromFile(file.getAbsolutePath());
+        assertEquals(file.length(), tableService.getOperation("loadTableFromFile").getBytesRead());
+    }
+}
@@ -0,0 +1,68 @@
+package org.arqaine.maven.service.impl;
+
+import org.arqaine.maven.model.SearchHit;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelRowSearchTest {
+
+    @Test
+    public void testParallelScanMatchesSequentialScanInRowOrder() {
+        List<LinkedHashMap<String, String>> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            LinkedHashMap<String, String> row = new LinkedHashMap<>();
+            row.put("key" + i, "value" + (i % 13));
+            row.put("col" + i, "other" + i);
+            rows.add(row);
+        }
+        // Identical rows must still report their own row numbers
+        rows.add(new LinkedHashMap<>(rows.get(7)));
+
+        List<SearchHit> expected = new ArrayList<>();
+        ParallelRowSearch.scan(rows, 0, rows.size(), "value7", false, expected);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<SearchHit> hits = new ParallelRowSearch(pool, 16).findValues(rows, "value7");
+            assertEquals(expected.toString(), hits.toString());
+            assertEquals(7, hits.get(0).getRowIndex());
+            assertEquals(1000, hits.get(hits.size() - 1).getRowIndex());
+            assertEquals(1, new ParallelRowSearch(pool, 16).findKeys(rows, "key999").size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelStreamHandsOverTheSameLimitedHitsAsTheSequentialStream() {
+        List<LinkedHashMap<String, String>> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            LinkedHashMap<String, String> row = new LinkedHashMap<>();
+            row.put("key" + i, "value" + (i % 13));
+            rows.add(row);
+        }
+
+        List<SearchHit> expected = new ArrayList<>();
+        assertEquals(50, ParallelRowSearch.stream(rows, "value7", false, 50, expected::add));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<SearchHit> hits = new ArrayList<>();
+            assertEquals(50, new ParallelRowSearch(pool, 16).streamParallel(rows, "value7", false, 50, hits::add));
+            assertEquals(expected.toString(), hits.toString());
+
+            hits.clear();
+            assertEquals(3, new ParallelRowSearch(pool, 16).streamParallel(rows, "value7", false, 0,
+                    hit -> hits.add(hit) && hits.size() < 3));
+            assertEquals(expected.subList(0, 3).toString(), hits.toString());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.arqaine.maven.service.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelTableLoaderTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testRowsKeepFileOrderAcrossChunks() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            content.append("key").append(i).append(":value").append(i).append(" | col:").append(i % 7).append("\r\n");
+        }
+        content.append("last:row");
+
+        File file = tempFolder.newFile("parallel.txt");
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<LinkedHashMap<String, String>> expected = new ArrayList<>();
+        new TableTextParser().parse(new StringReader(content.toString()), expected::add);
+
+        // Tiny chunks make every boundary fall in the middle of a line
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<LinkedHashMap<String, String>> rows = new ArrayList<>();
+            new ParallelTableLoader(pool, 64).load(file.toPath(), rows::add);
+            assertEquals(501, rows.size());
+            assertEquals(expected, rows);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.arqaine.maven.service.impl;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class RandomTableGeneratorTest {
+
+    @Test
+    public void testSeededTablesAreReproducibleAcrossPools() {
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            List<LinkedHashMap<String, String>> first = new RandomTableGenerator(new SplittableRandom(42), 3, one).rows(20000, 4);
+            List<LinkedHashMap<String, String>> second = new RandomTableGenerator(new SplittableRandom(42), 3, four).rows(20000, 4);
+
+            assertEquals(20000, first.size());
+            assertEquals(first, second);
+            for (LinkedHashMap<String, String> row : first) {
+                for (Map.Entry<String, String> entry : row.entrySet()) {
+                    assertTrue(entry.getKey().matches("[!-~&&[^:|]]{3}"));
+                    assertTrue(entry.getValue().matches("[!-~&&[^:|]]{3}"));
+                }
+            }
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+
+    @Test
+    public void testFromSeed() {
+        assertEquals(new RandomTableGenerator(7).row(5), RandomTableGenerator.fromSeed(" 7 ").row(5));
+        assertNotNull(RandomTableGenerator.fromSeed(null).row(1));
+    }
+}
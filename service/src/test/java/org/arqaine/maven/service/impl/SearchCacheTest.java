@@ -0,0 +1,66 @@
+package org.arqaine.maven.service.impl;
+
+import org.arqaine.maven.model.SearchHit;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SearchCacheTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        SearchCache cache = new SearchCache(2);
+        cache.put(true, "a", Collections.<SearchHit>emptyList());
+        cache.put(true, "b", Collections.<SearchHit>emptyList());
+        assertNotNull(cache.get(true, "a"));
+        cache.put(false, "a", Collections.<SearchHit>emptyList());
+
+        assertNotNull(cache.get(true, "a"));
+        assertNull(cache.get(true, "b"));
+        assertNotNull(cache.get(false, "a"));
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(0.75, cache.getHitRate(), 0.0001);
+
+        SearchCache disabled = new SearchCache(0);
+        disabled.put(true, "a", Collections.<SearchHit>emptyList());
+        assertNull(disabled.get(true, "a"));
+    }
+
+    @Test
+    public void testChangesDropOnlyAffectedResults() {
+        SearchCache cache = new SearchCache(16);
+        List<SearchHit> inRows1And3 = Arrays.asList(new SearchHit(1, "ab", "xy"), new SearchHit(3, "ab", "xz"));
+        cache.put(false, "x", inRows1And3);
+        cache.put(true, "ab", inRows1And3);
+        cache.put(true, "q", Collections.singletonList(new SearchHit(0, "q", "v")));
+        cache.put(false, "new", Collections.<SearchHit>emptyList());
+
+        // Sorting row 2 touches none of the hits
+        cache.rowChanged(2);
+        assertEquals(4, cache.getSize());
+
+        // A value edit drops the value searches it matches and the key searches of its cell
+        cache.valueChanged("abc", "xyz", "new");
+        assertNull(cache.get(false, "x"));
+        assertNull(cache.get(false, "new"));
+        assertNull(cache.get(true, "ab"));
+        assertNotNull(cache.get(true, "q"));
+
+        // An insert behind every hit only matters if the new row matches
+        LinkedHashMap<String, String> row = new LinkedHashMap<>();
+        row.put("zz", "zz");
+        cache.rowInserted(1, row);
+        assertNotNull(cache.get(true, "q"));
+        row.put("qq", "zz");
+        cache.rowInserted(1, row);
+        assertNull(cache.get(true, "q"));
+        assertEquals(4, cache.getInvalidations());
+    }
+}
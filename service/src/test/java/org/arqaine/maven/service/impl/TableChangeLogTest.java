@@ -0,0 +1,104 @@
+package org.arqaine.maven.service.impl;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TableChangeLogTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Path tablePath;
+
+    @Before
+    public void setUp() throws IOException {
+        tablePath = tempFolder.newFile("table.txt").toPath();
+        Files.write(tablePath, "key1:value1\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<LinkedHashMap<String, String>> rows() {
+        LinkedHashMap<String, String> row = new LinkedHashMap<>();
+        row.put("key1", "value1");
+        return new ArrayList<>(Collections.singletonList(row));
+    }
+
+    // A log holding one good record and then the given text
+    private TableChangeLog logWith(String tail) throws IOException {
+        try (TableChangeLog log = new TableChangeLog(tablePath)) {
+            log.truncate();
+            log.valueChanged(0, "key1", "edited");
+        }
+        Files.write(new TableChangeLog(tablePath).getLogPath(), tail.getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        return new TableChangeLog(tablePath);
+    }
+
+    @Test
+    public void testTornLastRecordIsDroppedAndLaterRecordsStartOnTheirOwnLine() throws IOException {
+        List<LinkedHashMap<String, String>> rows = rows();
+        try (TableChangeLog log = logWith("PUT\t0\tk1")) {
+            assertEquals(1, log.replay(rows));
+            assertEquals("edited", rows.get(0).get("key1"));
+
+            log.valueChanged(0, "key1", "again");
+        }
+
+        List<LinkedHashMap<String, String>> replayed = rows();
+        assertEquals(2, new TableChangeLog(tablePath).replay(replayed));
+        assertEquals("again", replayed.get(0).get("key1"));
+    }
+
+    @Test
+    public void testMalformedLastLineIsDroppedEvenWithItsNewline() throws IOException {
+        List<LinkedHashMap<String, String>> rows = rows();
+        assertEquals(1, logWith("ADD\tx\n").replay(rows));
+        assertEquals(1, rows.size());
+    }
+
+    @Test
+    public void testBadRecordBeforeTheLastFailsWithoutChangingAnyRow() throws IOException {
+        String[] badRecords = {"PUT\t0\tk1\n", "SET\tx\tk\tv\n", "ADD\t5\tk\tv\n", "PUT\t1\tk\tv\n", "DEL\t0\n"};
+        for (String bad : badRecords) {
+            List<LinkedHashMap<String, String>> rows = rows();
+            try {
+                logWith(bad + "PUT\t0\tkey1\tlater\n").replay(rows);
+                fail("Replayed " + bad);
+            } catch (IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("Corrupt record on line 3"));
+            }
+            assertEquals(rows(), rows);
+        }
+    }
+
+    @Test
+    public void testTruncatingToAMarkKeepsTheLaterRecords() throws IOException {
+        try (TableChangeLog log = new TableChangeLog(tablePath)) {
+            log.valueChanged(0, "key1", "saved");
+            long mark = log.mark();
+            log.valueChanged(0, "key1", "later");
+
+            // The table file now holds the first change
+            Files.write(tablePath, "key1:saved\n".getBytes(StandardCharsets.UTF_8));
+            log.truncate(mark);
+            assertEquals(1, log.size());
+        }
+
+        List<LinkedHashMap<String, String>> rows = rows();
+        rows.get(0).put("key1", "saved");
+        assertEquals(1, new TableChangeLog(tablePath).replay(rows));
+        assertEquals("later", rows.get(0).get("key1"));
+    }
+}
@@ -3,9 +3,12 @@ package org.arqaine.maven.service.impl;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
 import org.apache.commons.io.IOUtils;
+import org.arqaine.maven.model.IndexedRowList;
+import org.arqaine.maven.model.SearchHit;
 import org.arqaine.maven.model.Table;
 import org.arqaine.maven.service.TableService;
 import org.arqaine.maven.util.InputHandler;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -15,10 +18,16 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.io.*;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -77,6 +86,56 @@ public class TableServiceImplTest {
     }
 
 
+    @Test
+    @Parameters({"SCAN", "PARALLEL"})
+    public void testSearchWithoutIndex(String mode) {
+        ((TableServiceImpl) tableService).setSearchMode(SearchMode.valueOf(mode));
+
+        assertEquals("Found 'value' in row 0 with key 'key1' and value 'value1'.\n" +
+                "Found 'value' in row 0 with key 'key2' and value 'value2'.\n" +
+                "Found 'value' in row 1 with key 'key3' and value 'value3'.\n" +
+                "Found 'value' in row 1 with key 'key4' and value 'value4'.", tableService.search("V", "value"));
+        assertEquals("No instances of 'key9' found.", tableService.search("K", "key9"));
+    }
+
+    @Test
+    @Parameters({"INDEX", "SCAN", "PARALLEL"})
+    public void testSearchHitsStopsAtLimitAndWhenHandlerDeclines(String mode) {
+        ((TableServiceImpl) tableService).setSearchMode(SearchMode.valueOf(mode));
+
+        List<SearchHit> hits = new ArrayList<>();
+        assertEquals(3, tableService.searchHits("V", "value", 3, hits::add));
+        assertEquals("[0:key1:value1, 0:key2:value2, 1:key3:value3]", hits.toString());
+
+        hits.clear();
+        assertEquals(3, tableService.searchHits("K", "key", 0, hit -> hits.add(hit) && hit.getRowIndex() < 1));
+        assertEquals("[0:key1:value1, 0:key2:value2, 1:key3:value3]", hits.toString());
+    }
+
+    @Test
+    public void testSearchMatchesSubstringsLongerThanIndexGrams() {
+        String searchResult = tableService.search("V", "alue4");
+
+        assertEquals("Found 'alue4' in row 1 with key 'key4' and value 'value4'.", searchResult);
+    }
+
+    @Test
+    public void testSearchIndexFollowsInsertedRowsAndEditedValues() {
+        // Prime the index before mutating the table
+        assertEquals("Found 'value3' in row 1 with key 'key3' and value 'value3'.", tableService.search("V", "value3"));
+
+        tableService.addNewRow(0, 2);
+        assertEquals("Found 'value3' in row 2 with key 'key3' and value 'value3'.", tableService.search("V", "value3"));
+
+        when(inputHandler.getChoice(scanner, "Do you want to edit the key (K) or the value (V)? ")).thenReturn("V");
+        when(inputHandler.getUserInputString(scanner, "Enter the new value: ")).thenReturn("edited");
+        tableService.editCell("key3");
+
+        assertEquals("No instances of 'value3' found.", tableService.search("V", "value3"));
+        assertEquals("Found 'edit' in row 2 with key 'key3' and value 'edited'.", tableService.search("V", "edit"));
+    }
+
+
 
     @Test
     public void testEditCell() {
@@ -101,6 +160,119 @@ public class TableServiceImplTest {
         System.out.println("Test Edit Success");
     }
 
+    @Test(timeout = 10000)
+    public void testEditCellDoesNotHoldTheLockWhileWaitingForAnswers() throws Exception {
+        CountDownLatch prompted = new CountDownLatch(1);
+        CountDownLatch answered = new CountDownLatch(1);
+        when(inputHandler.getChoice(scanner, "Do you want to edit the key (K) or the value (V)? ")).thenAnswer(invocation -> {
+            prompted.countDown();
+            answered.await();
+            return "V";
+        });
+        when(inputHandler.getUserInputString(scanner, "Enter the new value: ")).thenReturn("late");
+        Thread editor = new Thread(() -> tableService.editCell("key1"));
+        editor.start();
+        prompted.await();
+
+        // Other callers, such as a write-behind save, get through while the user is still typing
+        assertEquals("Row 1 sorted successfully.", tableService.sortRow(1));
+        answered.countDown();
+        editor.join();
+        assertEquals("late", mockTableData.get(0).get("key1"));
+    }
+
+    @Test(timeout = 10000)
+    public void testEditCellReportsRowsThatChangedWhileAnswersWereRead() throws Exception {
+        mockTableData.add(row("dup", "a"));
+        mockTableData.add(row("dup", "b"));
+        File moreRows = tempFolder.newFile("more.txt");
+        Files.write(moreRows.toPath(), "dup:c\n".getBytes(StandardCharsets.UTF_8));
+
+        CountDownLatch prompted = new CountDownLatch(1);
+        CountDownLatch answered = new CountDownLatch(1);
+        when(inputHandler.getChoice(scanner, "Do you want to edit the key (K) or the value (V)? ")).thenAnswer(invocation -> {
+            prompted.countDown();
+            answered.await();
+            return "V";
+        });
+        when(inputHandler.getUserInputString(scanner, "Enter the new value: ")).thenReturn("late");
+        Thread editor = new Thread(() -> tableService.editCell("dup"));
+        editor.start();
+        prompted.await();
+
+        // A third row with the key arrives while the two answers are being typed
+        tableService.loadTableFromFile(moreRows.getAbsolutePath());
+        answered.countDown();
+        editor.join();
+
+        verify(inputHandler).printCustomMessage("The rows holding key 'dup' changed while the answers were read. No changes made.");
+        assertEquals("a", mockTableData.get(2).get("dup"));
+        assertEquals("b", mockTableData.get(3).get("dup"));
+    }
+
+    @Test
+    public void testEditKeyRenamesInPlaceAndKeepsIndexesCurrent() {
+        LinkedHashMap<String, String> row = row("a", "x", "b", "yy", "c", "z");
+        mockTableData.add(0, row);
+        assertEquals("Found 'yy' in row 0 with key 'b' and value 'yy'.", tableService.search("V", "yy"));
+
+        when(inputHandler.getChoice(scanner, "Do you want to edit the key (K) or the value (V)? ")).thenReturn("K");
+        when(inputHandler.getUserInputString(scanner, "Enter the new key: ")).thenReturn("renamed", "key3");
+        tableService.editCell("b");
+
+        assertSame(row, mockTableData.get(0));
+        assertEquals("[a, renamed, c]", row.keySet().toString());
+        assertEquals("Found 'yy' in row 0 with key 'renamed' and value 'yy'.", tableService.search("V", "yy"));
+
+        // The renamed key is found by the next edit, and the old one is gone
+        tableService.editCell("renamed");
+        verify(inputHandler).printCustomMessage("Key 'key3' already exists in other rows.");
+        tableService.editCell("b");
+        verify(inputHandler).printCustomMessage("Key 'b' not found in any row.");
+    }
+
+    @Test
+    public void testIndexedRowListKeepsPositionsAcrossFrontInserts() {
+        IndexedRowList<LinkedHashMap<String, String>> rows = new IndexedRowList<>(mockTableData);
+        mockTableData(rows);
+        assertEquals("Found 'value4' in row 1 with key 'key4' and value 'value4'.", tableService.search("V", "value4"));
+
+        for (int i = 0; i < 300; i++) {
+            tableService.addNewRow(0, 1);
+        }
+        assertEquals("Found 'value4' in row 301 with key 'key4' and value 'value4'.", tableService.search("V", "value4"));
+
+        when(inputHandler.getChoice(scanner, "Do you want to edit the key (K) or the value (V)? ")).thenReturn("V");
+        when(inputHandler.getUserInputString(scanner, "Enter the new value: ")).thenReturn("edited");
+        tableService.editCell("key3");
+        assertEquals("edited", rows.get(301).get("key3"));
+        assertEquals("Rows ordered by key 'key1'.", tableService.sortRowsByKey("key1"));
+        assertEquals(0, rows.positionOf(rows.get(0)));
+        assertEquals(302, rows.size());
+    }
+
+    @Test
+    public void testSearchCacheAnswersRepeatsUntilAChangeAffectsThem() {
+        SearchCache cache = ((TableServiceImpl) tableService).getSearchCache();
+        String first = tableService.search("V", "value");
+        assertEquals(first, tableService.search("V", "value"));
+        assertEquals(1, cache.getHits());
+
+        // Random cells are too short to contain the target, so an appended row keeps the result
+        tableService.addNewRow(2, 2);
+        List<SearchHit> hits = new ArrayList<>();
+        assertEquals(4, tableService.searchHits("V", "value", 0, hits::add));
+        assertEquals(2, cache.getHits());
+
+        when(inputHandler.getChoice(scanner, "Do you want to edit the key (K) or the value (V)? ")).thenReturn("V");
+        when(inputHandler.getUserInputString(scanner, "Enter the new value: ")).thenReturn("changed");
+        tableService.editCell("key3");
+        assertEquals("Found 'value' in row 0 with key 'key1' and value 'value1'.\n" +
+                "Found 'value' in row 0 with key 'key2' and value 'value2'.\n" +
+                "Found 'value' in row 1 with key 'key4' and value 'value4'.", tableService.search("V", "value"));
+        assertEquals(2, cache.getHits());
+    }
+
     @Test
     public void testEditCell_KeyNotFound_Exception() {
         String keyToEdit = "nonexistentKey";
@@ -124,12 +296,27 @@ public class TableServiceImplTest {
         System.out.println("Test Print");
     }
 
+    @Test
+    public void testPrintRowsWritesRangesLikePrintTable() throws IOException {
+        StringWriter all = new StringWriter();
+        assertEquals(2, tableService.printRows(all, 0, Integer.MAX_VALUE));
+        assertEquals(tableService.printTable(), all.toString());
+
+        StringWriter page = new StringWriter();
+        assertEquals(1, tableService.printRows(page, 1, 2));
+        assertEquals("key3:value3 | key4:value4 | \n", page.toString());
+
+        StringWriter beyond = new StringWriter();
+        assertEquals(0, tableService.printRows(beyond, 5, 10));
+        assertEquals("", beyond.toString());
+    }
+
     @Test
     public void testReset() {
         int newRows = 2;
         int newCols = 2;
 
-        tableService.reset(newRows, newCols);
+        assertEquals("Table reset with new random data.", tableService.reset(newRows, newCols));
 
         // Ensure the correct number of rows is generated
         assertEquals(newRows, mockTableData.size());
@@ -178,6 +365,14 @@ public class TableServiceImplTest {
         System.out.println("Test Add New Row Invalid Index");
     }
 
+    @Test
+    public void testTooManyColumnsAreReportedAndLeaveTheTableAlone() {
+        assertEquals("A row can have at most 778688 columns. Table not reset.", tableService.reset(1, 1000000));
+        assertEquals("A row can have at most 778688 columns. Row not inserted.", tableService.addNewRow(1, 1000000));
+        assertEquals(2, mockTableData.size());
+        assertEquals("key1", mockTableData.get(0).keySet().iterator().next());
+    }
+
     @Test
     public void testSortRow() {
 
@@ -198,6 +393,44 @@ public class TableServiceImplTest {
         System.out.println("Test Sort Row");
     }
 
+    @Test
+    @Parameters({
+            "K, abc de",
+            "V, bca ed"
+    })
+    public void testSortAllRows(String sortChoice, String expectedKeyOrder) {
+        mockTableData.clear();
+        mockTableData.add(row("c", "2", "a", "3", "b", "1"));
+        mockTableData.add(row("d", "9", "e", "1"));
+
+        tableService.sortAllRows(sortChoice);
+
+        assertEquals(expectedKeyOrder, String.join("", mockTableData.get(0).keySet()) + " " +
+                String.join("", mockTableData.get(1).keySet()));
+        assertEquals("3", mockTableData.get(0).get("a"));
+    }
+
+    @Test
+    public void testSortRowsByKey() {
+        mockTableData.add(row("key1", "another", "key5", "x"));
+        mockTableData.add(row("key6", "y"));
+
+        assertEquals("Rows ordered by key 'key1'.", tableService.sortRowsByKey("key1"));
+        assertEquals("another", mockTableData.get(0).get("key1"));
+        assertEquals("value1", mockTableData.get(1).get("key1"));
+        assertEquals("value3", mockTableData.get(2).get("key3"));
+        assertEquals("y", mockTableData.get(3).get("key6"));
+        assertEquals("Key 'nope' not found in any row.", tableService.sortRowsByKey("nope"));
+    }
+
+    private static LinkedHashMap<String, String> row(String... cells) {
+        LinkedHashMap<String, String> row = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < cells.length; i += 2) {
+            row.put(cells[i], cells[i + 1]);
+        }
+        return row;
+    }
+
     @Test
     public void testSortRowInvalidIndex() {
 
@@ -232,6 +465,19 @@ public class TableServiceImplTest {
     }
 
 
+    @Test
+    public void testLoadTableFromFileMapped() throws IOException {
+        File tempFile = tempFolder.newFile("mappedFile.txt");
+        Files.write(tempFile.toPath(), "key5:value5 | key6:value6\n".getBytes(StandardCharsets.UTF_8));
+
+        ((TableServiceImpl) tableService).setLoadMode(LoadMode.MAPPED);
+        tableService.loadTableFromFile(tempFile.getAbsolutePath());
+
+        assertEquals(3, mockTableData.size());
+        assertEquals("value6", mockTableData.get(2).get("key6"));
+    }
+
+
     @Test
     public void testSaveTableToFile() {
 
@@ -265,6 +511,178 @@ public class TableServiceImplTest {
         System.out.println("Test Save Table to file Success");
     }
 
+    @Test
+    @Parameters({"table.txt", "table.tbin", "table.txt.gz"})
+    public void testSaveReplacesTheFileBehindASymlinkAndKeepsItsPermissions(String fileName) throws IOException {
+        Path real = tempFolder.newFile(fileName).toPath();
+        Assume.assumeNotNull(Files.getFileAttributeView(real, PosixFileAttributeView.class));
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+        Files.setPosixFilePermissions(real, permissions);
+        Path link = tempFolder.getRoot().toPath().resolve("link-" + fileName);
+        Files.createSymbolicLink(link, real);
+
+        tableService.saveTableToFile(mockTableData, link.toString());
+
+        assertTrue(Files.isSymbolicLink(link));
+        assertEquals(permissions, Files.getPosixFilePermissions(real));
+        assertTrue(Files.size(real) > 0);
+        assertEquals(0, tempFolder.getRoot().list((dir, name) -> name.endsWith(".tmp")).length);
+    }
+
+
+    @Test
+    public void testChangeLogReplaysChangesOnNextStart() throws IOException {
+        String filePath = tempFolder.newFile("logged.txt").getAbsolutePath();
+        tableService.saveTableToFile(mockTableData, filePath);
+        tableService.enableChangeLog(filePath);
+
+        tableService.addNewRow(1, 2);
+        when(inputHandler.getChoice(scanner, "Do you want to edit the key (K) or the value (V)? ")).thenReturn("V");
+        when(inputHandler.getUserInputString(scanner, "Enter the new value: ")).thenReturn("edited");
+        tableService.editCell("key1");
+
+        // Changes only reach the log until the table is compacted
+        assertEquals(2, Files.readAllLines(new File(filePath).toPath()).size());
+
+        List<LinkedHashMap<String, String>> reloaded = new ArrayList<>();
+        Table reloadedTable = mock(Table.class);
+        when(reloadedTable.getTableData()).thenReturn(reloaded);
+        TableService restarted = new TableServiceImpl(reloadedTable, scanner, inputHandler);
+        restarted.loadTableFromFile(filePath);
+        restarted.enableChangeLog(filePath);
+
+        assertEquals(mockTableData, reloaded);
+        assertEquals(3, Files.readAllLines(new File(filePath).toPath()).size());
+    }
+
+
+    @Test
+    public void testWriteBehindFlushesOnceEnoughChangesArePending() throws Exception {
+        String filePath = tempFolder.newFile("writeBehind.txt").getAbsolutePath();
+        TableServiceImpl service = (TableServiceImpl) tableService;
+        // The delay is far away, so only the operation count can trigger the flush
+        service.enableWriteBehind(filePath, 3600000, 2);
+
+        service.sortRow(1);
+        assertEquals(1, service.getPendingChanges().count());
+        service.addNewRow(0, 2);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.getPendingChanges().isDirty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(service.getPendingChanges().isDirty());
+        assertEquals(3, Files.readAllLines(new File(filePath).toPath()).size());
+    }
+
+    @Test
+    public void testWriteBehindLeavesLoggedChangesInTheLog() throws Exception {
+        String filePath = tempFolder.newFile("loggedWriteBehind.txt").getAbsolutePath();
+        TableServiceImpl service = (TableServiceImpl) tableService;
+        service.saveTableToFile(mockTableData, filePath);
+        service.enableChangeLog(filePath);
+        service.enableWriteBehind(filePath, 0, 1);
+
+        service.addNewRow(0, 2);
+        service.sortRow(1);
+        Thread.sleep(200);
+
+        // The log holds the changes, the table file waits for the log to grow or for the exit
+        assertEquals(2, Files.readAllLines(new File(filePath).toPath()).size());
+        assertEquals(2, service.getPendingChanges().count());
+
+        service.flush();
+        assertFalse(service.getPendingChanges().isDirty());
+        assertEquals(3, Files.readAllLines(new File(filePath).toPath()).size());
+        assertEquals(1, Files.readAllLines(new File(filePath + ".log").toPath()).size());
+    }
+
+
+    @Test
+    public void testSaveTableToFileReplacesTargetAtomically() throws IOException {
+        File target = tempFolder.newFile("atomic.txt");
+        Files.write(target.toPath(), "old:content\n".getBytes(StandardCharsets.UTF_8));
+
+        LinkedHashMap<String, String> row = new LinkedHashMap<>();
+        row.put("clé", "välue😀");
+        tableService.saveTableToFile(Collections.singletonList(row), target.getAbsolutePath());
+
+        assertEquals(Collections.singletonList("clé:välue😀"), Files.readAllLines(target.toPath(), StandardCharsets.UTF_8));
+        // Only the target is left behind, no temporary file
+        assertArrayEquals(new String[]{"atomic.txt"}, target.getParentFile().list((dir, name) -> name.startsWith("atomic")));
+    }
+
+
+    @Test
+    public void testBinaryTableFileRoundTrip() throws IOException {
+        String binaryPath = tempFolder.getRoot().getAbsolutePath() + "/table" + BinaryTableFormat.EXTENSION;
+        tableService.saveTableToFile(mockTableData, binaryPath);
+
+        List<LinkedHashMap<String, String>> expected = new ArrayList<>(mockTableData);
+        tableService.loadTableFromFile(binaryPath);
+        assertEquals(4, mockTableData.size());
+        assertEquals(expected, mockTableData.subList(2, 4));
+
+        // Converting to text and back gives the same table
+        File textFile = new File(tempFolder.getRoot(), "converted.txt");
+        File binaryFile = new File(tempFolder.getRoot(), "converted" + BinaryTableFormat.EXTENSION);
+        BinaryTableFormat.binaryToText(new File(binaryPath).toPath(), textFile.toPath());
+        assertEquals(Arrays.asList("key1:value1 | key2:value2", "key3:value3 | key4:value4"), Files.readAllLines(textFile.toPath()));
+        BinaryTableFormat.textToBinary(textFile.toPath(), binaryFile.toPath());
+        assertArrayEquals(Files.readAllBytes(new File(binaryPath).toPath()), Files.readAllBytes(binaryFile.toPath()));
+    }
+
+
+    @Test
+    @Parameters({"table.txt.gz", "table.txt.deflate", "table.txt.bgz", "table.tbin.gz"})
+    public void testCompressedTableFileRoundTrip(String fileName) {
+        String filePath = tempFolder.getRoot().getAbsolutePath() + "/" + fileName;
+        List<LinkedHashMap<String, String>> expected = new ArrayList<>(mockTableData);
+        tableService.saveTableToFile(expected, filePath);
+
+        mockTableData.clear();
+        tableService.loadTableFromFile(filePath);
+
+        assertEquals(expected, mockTableData);
+    }
+
+    @Test
+    public void testBlockCompressedTableLoadsInParallel() throws IOException {
+        List<LinkedHashMap<String, String>> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            LinkedHashMap<String, String> row = new LinkedHashMap<>();
+            row.put("key" + i, "value" + i);
+            expected.add(row);
+        }
+        File file = new File(tempFolder.getRoot(), "blocks.txt.bgz");
+        try (OutputStream out = new BlockGzipOutputStream(new FileOutputStream(file), 1024)) {
+            new TableTextWriter().write(expected, Channels.newChannel(out));
+        }
+
+        ((TableServiceImpl) tableService).setLoadMode(LoadMode.PARALLEL);
+        mockTableData.clear();
+        tableService.loadTableFromFile(file.getAbsolutePath());
+
+        assertEquals(expected, mockTableData);
+    }
+
+
+    @Test
+    public void testPlainGzipRenamedToBgzStillLoadsInParallelMode() throws IOException {
+        File file = new File(tempFolder.getRoot(), "plain.txt.bgz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write("key1:value1 | key2:value2\nkey3:value3\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        ((TableServiceImpl) tableService).setLoadMode(LoadMode.PARALLEL);
+        mockTableData.clear();
+        tableService.loadTableFromFile(file.getAbsolutePath());
+
+        assertEquals(2, mockTableData.size());
+        assertEquals("value3", mockTableData.get(1).get("key3"));
+        verify(inputHandler, never()).printCustomMessage(anyString());
+    }
+
 
     //Initialize table
     @Test
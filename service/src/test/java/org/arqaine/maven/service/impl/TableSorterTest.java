@@ -0,0 +1,27 @@
+package org.arqaine.maven.service.impl;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnitParamsRunner.class)
+public class TableSorterTest {
+
+    @Test
+    @Parameters({
+            "ab, c, a, bc",
+            "ab, c, a, bd",
+            "a, b, ab, ",
+            "k, v, k, w",
+            "key10, x, key1, 0y",
+            "z, , y, zz"
+    })
+    public void testCompareConcatenatedMatchesStringCompare(String a1, String b1, String a2, String b2) {
+        int expected = Integer.signum((a1 + b1).compareTo(a2 + b2));
+        assertEquals(expected, Integer.signum(TableSorter.compareConcatenated(a1, b1, a2, b2)));
+        assertEquals(-expected, Integer.signum(TableSorter.compareConcatenated(a2, b2, a1, b1)));
+    }
+}
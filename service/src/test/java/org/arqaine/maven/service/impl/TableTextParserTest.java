@@ -0,0 +1,70 @@
+package org.arqaine.maven.service.impl;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TableTextParserTest {
+
+    private static final String[] LINES = {
+            "key1:value1 | key2:value2",
+            "  spaced  :  out  |tight:pair",
+            "a:b:c | ok:fine",
+            "trailing:colons:: | empty: | :novalue",
+            "|| no pairs here ||",
+            "",
+            "dup:first | dup:second",
+            "tab\t:\tseparated\t"
+    };
+
+    @Test
+    public void testMatchesSplitBasedParsing() throws IOException {
+        String content = String.join("\n", LINES) + "\n";
+
+        assertEquals(splitParse(LINES), parse(content, 64 * 1024));
+    }
+
+    @Test
+    public void testLinesSpanningBufferRefills() throws IOException {
+        String content = String.join("\r\n", LINES);
+
+        // A tiny buffer forces refills and growth in the middle of lines and of \r\n pairs
+        assertEquals(splitParse(LINES), parse(content, 4));
+    }
+
+    @Test
+    public void testCarriageReturnLineEndings() throws IOException {
+        List<LinkedHashMap<String, String>> rows = parse("a:1\rb:2\r\nc:3", 64);
+
+        assertEquals(3, rows.size());
+        assertEquals("3", rows.get(2).get("c"));
+    }
+
+    private static List<LinkedHashMap<String, String>> parse(String content, int bufferSize) throws IOException {
+        List<LinkedHashMap<String, String>> rows = new ArrayList<>();
+        new TableTextParser(bufferSize).parse(new StringReader(content), rows::add);
+        return rows;
+    }
+
+    // The regex-based rules the tokenizer replaces
+    private static List<LinkedHashMap<String, String>> splitParse(String[] lines) {
+        List<LinkedHashMap<String, String>> rows = new ArrayList<>();
+        for (String line : lines) {
+            LinkedHashMap<String, String> row = new LinkedHashMap<>();
+            for (String pair : line.split("\\|")) {
+                String[] parts = pair.split(":");
+                if (parts.length == 2) {
+                    row.put(parts[0].trim(), parts[1].trim());
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
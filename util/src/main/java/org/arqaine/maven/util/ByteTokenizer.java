@@ -0,0 +1,119 @@
+package org.arqaine.maven.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits a byte stream into whitespace separated tokens, like {@link java.util.Scanner#next()}
+ * but without regular expressions.
+ *
+ * Input is read in large blocks and scanned byte by byte. Tokens are UTF-8, and integers are
+ * parsed straight from the bytes without building a string first.
+ */
+public class ByteTokenizer {
+    public static final long NOT_AN_INT = Long.MIN_VALUE;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private byte[] token = new byte[64];
+    private int tokenLength;
+
+    public ByteTokenizer(InputStream in) {
+        this.in = in;
+    }
+
+    public boolean hasNext() {
+        return skipWhitespace();
+    }
+
+    public String next() {
+        readToken();
+        for (int i = 0; i < tokenLength; i++) {
+            if (token[i] < 0) {
+                return new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+            }
+        }
+        // Plain ASCII needs no decoder
+        char[] chars = new char[tokenLength];
+        for (int i = 0; i < tokenLength; i++) {
+            chars[i] = (char) token[i];
+        }
+        return new String(chars);
+    }
+
+    // The next token as an int, or NOT_AN_INT when it is no int; the token is consumed either way
+    public long nextInt() {
+        readToken();
+        int i = 0;
+        boolean negative = false;
+        if (token[0] == '-' || token[0] == '+') {
+            negative = token[0] == '-';
+            i++;
+        }
+        if (i == tokenLength) {
+            return NOT_AN_INT;
+        }
+        long value = 0;
+        for (; i < tokenLength; i++) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_AN_INT;
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return NOT_AN_INT;
+            }
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? NOT_AN_INT : value;
+    }
+
+    private void readToken() {
+        if (!skipWhitespace()) {
+            throw new NoSuchElementException();
+        }
+        tokenLength = 0;
+        do {
+            if (tokenLength == token.length) {
+                token = Arrays.copyOf(token, token.length * 2);
+            }
+            token[tokenLength++] = buffer[position++];
+        } while ((position < limit || fill()) && !isWhitespace(buffer[position]));
+    }
+
+    private boolean skipWhitespace() {
+        while (position < limit || fill()) {
+            if (!isWhitespace(buffer[position])) {
+                return true;
+            }
+            position++;
+        }
+        return false;
+    }
+
+    private boolean fill() {
+        try {
+            int read = in.read(buffer, 0, buffer.length);
+            if (read <= 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+}
@@ -0,0 +1,48 @@
+package org.arqaine.maven.util;
+
+import java.io.InputStream;
+import java.util.Scanner;
+
+/**
+ * An {@link InputHandler} that reads its answers with a {@link ByteTokenizer} instead of a
+ * {@link Scanner}. Prompts and validation are the same, the scanner passed in is not used.
+ */
+public class FastInputHandler extends InputHandler {
+    private final ByteTokenizer tokenizer;
+
+    public FastInputHandler(InputStream in) {
+        super(null);
+        this.tokenizer = new ByteTokenizer(in);
+    }
+
+    @Override
+    public String getChoice(Scanner scanner, String prompt) {
+        String choice;
+        do {
+            System.out.print(prompt);
+            choice = tokenizer.next();
+            if (!choice.equalsIgnoreCase("K") && !choice.equalsIgnoreCase("V")) {
+                System.out.println("Invalid input. Please enter 'K' or 'V'.");
+            }
+        } while (!choice.equalsIgnoreCase("K") && !choice.equalsIgnoreCase("V"));
+        return choice;
+    }
+
+    @Override
+    public int getUserInput(Scanner scanner, String prompt) {
+        long userInput;
+        do {
+            System.out.print(prompt);
+            while ((userInput = tokenizer.nextInt()) == ByteTokenizer.NOT_AN_INT) {
+                System.out.print("Invalid input! Please enter a valid number: ");
+            }
+        } while (userInput < 0); // Keep prompting until a positive integer is entered
+        return (int) userInput;
+    }
+
+    @Override
+    public String getUserInputString(Scanner scanner, String prompt) {
+        System.out.print(prompt);
+        return tokenizer.next();
+    }
+}
@@ -0,0 +1,117 @@
+package org.arqaine.maven.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+public class ByteTokenizerTest {
+
+    private static ByteTokenizer tokenizer(String input) {
+        return new ByteTokenizer(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Blanks up to the given number of bytes before the end of the buffer
+    private static String padding(int beforeEnd) {
+        char[] blanks = new char[(1 << 16) - beforeEnd];
+        Arrays.fill(blanks, ' ');
+        return new String(blanks);
+    }
+
+    @Test
+    public void testTokensAreSplitOnAnyWhitespace() {
+        ByteTokenizer tokenizer = tokenizer("  one\ttwo\r\nthree\f\u000Bfour  \n");
+
+        assertEquals("one", tokenizer.next());
+        assertEquals("two", tokenizer.next());
+        assertEquals("three", tokenizer.next());
+        assertEquals("four", tokenizer.next());
+        assertFalse(tokenizer.hasNext());
+    }
+
+    @Test
+    public void testIntsWithSigns() {
+        ByteTokenizer tokenizer = tokenizer("42 +7 -13 0 -0 - + 1x x1 3.5");
+
+        assertEquals(42, tokenizer.nextInt());
+        assertEquals(7, tokenizer.nextInt());
+        assertEquals(-13, tokenizer.nextInt());
+        assertEquals(0, tokenizer.nextInt());
+        assertEquals(0, tokenizer.nextInt());
+        assertEquals(ByteTokenizer.NOT_AN_INT, tokenizer.nextInt());
+        assertEquals(ByteTokenizer.NOT_AN_INT, tokenizer.nextInt());
+        assertEquals(ByteTokenizer.NOT_AN_INT, tokenizer.nextInt());
+        assertEquals(ByteTokenizer.NOT_AN_INT, tokenizer.nextInt());
+        assertEquals(ByteTokenizer.NOT_AN_INT, tokenizer.nextInt());
+        assertFalse(tokenizer.hasNext());
+    }
+
+    @Test
+    public void testIntsAtAndBeyondTheLimitsOfAnInt() {
+        ByteTokenizer tokenizer = tokenizer("2147483647 -2147483648 2147483648 -2147483649 99999999999999999999 "
+                + "000000000000002147483647");
+
+        assertEquals(Integer.MAX_VALUE, tokenizer.nextInt());
+        assertEquals(Integer.MIN_VALUE, tokenizer.nextInt());
+        assertEquals(ByteTokenizer.NOT_AN_INT, tokenizer.nextInt());
+        assertEquals(ByteTokenizer.NOT_AN_INT, tokenizer.nextInt());
+        assertEquals(ByteTokenizer.NOT_AN_INT, tokenizer.nextInt());
+        assertEquals(Integer.MAX_VALUE, tokenizer.nextInt());
+    }
+
+    @Test
+    public void testNonAsciiTokensAreDecodedAsUtf8() {
+        ByteTokenizer tokenizer = tokenizer("schlüssel 值 😀x");
+
+        assertEquals("schlüssel", tokenizer.next());
+        assertEquals("值", tokenizer.next());
+        assertEquals("😀x", tokenizer.next());
+        assertFalse(tokenizer.hasNext());
+    }
+
+    @Test
+    public void testTokensSpanningTheBufferBoundary() {
+        // The first read fills the 64 KiB buffer, so each token below straddles its end
+        assertEquals("boundary", tokenizer(padding(3) + "boundary end").next());
+        assertEquals(Integer.MIN_VALUE, tokenizer(padding(5) + "-2147483648 end").nextInt());
+        // The two bytes of the ü end up in different reads
+        ByteTokenizer tokenizer = tokenizer(padding(1) + "ü€ end");
+        assertEquals("ü€", tokenizer.next());
+        assertEquals("end", tokenizer.next());
+        assertFalse(tokenizer.hasNext());
+    }
+
+    @Test
+    public void testTokensLongerThanTheBufferFromAStreamReturningFewBytes() {
+        char[] letters = new char[200000];
+        Arrays.fill(letters, 'a');
+        byte[] bytes = (new String(letters) + " 12345").getBytes(StandardCharsets.UTF_8);
+        InputStream trickle = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        ByteTokenizer tokenizer = new ByteTokenizer(trickle);
+
+        assertEquals(new String(letters), tokenizer.next());
+        assertEquals(12345, tokenizer.nextInt());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNextAtEndOfInputThrows() {
+        ByteTokenizer tokenizer = tokenizer("last \n ");
+        assertEquals("last", tokenizer.next());
+        tokenizer.next();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNextIntOnEmptyInputThrows() {
+        tokenizer("").nextInt();
+    }
+}
@@ -0,0 +1,50 @@
+package org.arqaine.maven.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+public class FastInputHandlerTest {
+
+    private static FastInputHandler handler(String input) {
+        return new FastInputHandler(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testGetUserInputSkipsInvalidAndNegativeNumbers() {
+        FastInputHandler handler = handler("abc -5 2147483648 +12\n-2147483648 2147483647");
+
+        assertEquals(12, handler.getUserInput(null, "Number: "));
+        assertEquals(Integer.MAX_VALUE, handler.getUserInput(null, "Number: "));
+    }
+
+    @Test
+    public void testGetChoiceAsksAgainUntilKOrV() {
+        FastInputHandler handler = handler("x kv v K");
+
+        assertEquals("v", handler.getChoice(null, "Choice: "));
+        assertEquals("K", handler.getChoice(null, "Choice: "));
+    }
+
+    @Test
+    public void testGetUserInputStringReadsOneToken() {
+        FastInputHandler handler = handler("  neuer-schlüssel\tnext");
+
+        assertEquals("neuer-schlüssel", handler.getUserInputString(null, "Key: "));
+        assertEquals("next", handler.getUserInputString(null, "Key: "));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testGetUserInputAtEndOfInputThrows() {
+        handler("nope -1").getUserInput(null, "Number: ");
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testGetChoiceAtEndOfInputThrows() {
+        handler("").getChoice(null, "Choice: ");
+    }
+}